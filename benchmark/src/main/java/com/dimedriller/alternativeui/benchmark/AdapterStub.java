@@ -0,0 +1,32 @@
+package com.dimedriller.alternativeui.benchmark;
+
+import com.dimedriller.alternativeui.listview.diff.ItemSource;
+
+/**
+ ***********************************************************************************************************************
+ * Minimal stand-in of {@link android.widget.Adapter} with stable IDs backed by array. Item ID is item hash code, so
+ * equal items have equal IDs as required by {@link ItemSource}
+ ***********************************************************************************************************************
+ */
+public class AdapterStub implements ItemSource {
+    private final Object[] mItems;
+
+    public AdapterStub(Object[] items) {
+        mItems = items;
+    }
+
+    @Override
+    public int getCount() {
+        return mItems.length;
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return mItems[position];
+    }
+
+    @Override
+    public long getItemID(int position) {
+        return mItems[position].hashCode();
+    }
+}
@@ -0,0 +1,134 @@
+package com.dimedriller.alternativeui.benchmark;
+
+import com.dimedriller.alternativeui.listview.diff.DiffAnalyser;
+import com.dimedriller.alternativeui.listview.diff.DiffStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ ***********************************************************************************************************************
+ * Measures search of difference between displayed items and adapter items as it is done by
+ * {@link com.dimedriller.alternativeui.listview.HorizontalListView} on data set change. Analysers are reused between
+ * invocations as the view does, so allocation rate reported by GC profiler shows garbage created by single diff.
+ ***********************************************************************************************************************
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiffAnalyserBenchmark {
+    private static final long RANDOM_SEED = 0x5EED;
+    private static final int DIFF_WINDOW_RATIO = 2; // The same as initial diff window radius used by the view
+
+    @Param({"ANCHOR", "MYERS"})
+    public DiffStrategy mStrategy;
+
+    @Param({"APPEND", "PREPEND", "RANDOM_INSERT_DELETE", "REORDER", "REPLACE", "DUPLICATES"})
+    public ListMutation mMutation;
+
+    @Param({"5", "20", "50"})
+    public int mWindowSize;
+
+    @Param({"100", "10000", "1000000"})
+    public int mAdapterSize;
+
+    private Object[] mBaseList;
+    private long[] mBaseListIDs;
+    private int mFirstItemIndex;
+    private AdapterStub mAdapter;
+    private DiffAnalyser mDiffAnalyser;
+    private DiffAnalyser mIDDiffAnalyser;
+
+    @Setup
+    public void setUp() {
+        Object[] items = mMutation.createItems(mAdapterSize);
+        int windowSize = Math.min(mWindowSize, mAdapterSize);
+        int firstItemIndex = (mAdapterSize - windowSize) / 2;
+
+        Object[] baseList = new Object[windowSize];
+        long[] baseListIDs = new long[windowSize];
+        System.arraycopy(items, firstItemIndex, baseList, 0, windowSize);
+        for(int counterItem = 0; counterItem < windowSize; counterItem++)
+            baseListIDs[counterItem] = baseList[counterItem].hashCode();
+
+        mBaseList = baseList;
+        mBaseListIDs = baseListIDs;
+        mFirstItemIndex = firstItemIndex;
+        mAdapter = new AdapterStub(mMutation.mutate(items, firstItemIndex, windowSize, new Random(RANDOM_SEED)));
+        mDiffAnalyser = mStrategy.createAnalyser();
+        mIDDiffAnalyser = mStrategy.createAnalyser();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Displayed items are searched near their old position as it is done on data set change
+     *******************************************************************************************************************
+     */
+    @Benchmark
+    public int findWindowDiff() {
+        DiffAnalyser diffAnalyser = mDiffAnalyser;
+        diffAnalyser.setBaseList(mBaseList);
+        diffAnalyser.findDiff(mAdapter, mFirstItemIndex, mBaseList.length * DIFF_WINDOW_RATIO);
+        return diffAnalyser.getChangeRunsCount();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Stable IDs are compared instead of items as it is done for adapters having stable IDs
+     *******************************************************************************************************************
+     */
+    @Benchmark
+    public int findWindowDiffByIDs() {
+        DiffAnalyser diffAnalyser = mIDDiffAnalyser;
+        diffAnalyser.setBaseList(mBaseListIDs);
+        diffAnalyser.findDiff(mAdapter, mFirstItemIndex, mBaseListIDs.length * DIFF_WINDOW_RATIO);
+        return diffAnalyser.getChangeRunsCount();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * All adapter items are scanned. It is the worst case of window search when displayed items are not found
+     *******************************************************************************************************************
+     */
+    @Benchmark
+    public int findFullDiff() {
+        DiffAnalyser diffAnalyser = mDiffAnalyser;
+        diffAnalyser.setBaseList(mBaseList);
+        diffAnalyser.findDiff(mAdapter);
+        return diffAnalyser.getChangeRunsCount();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Runs benchmarks with GC profiler, so both time and allocation rate are reported. Standard JMH options can be
+     * passed, e.g. {@code -p mAdapterSize=10000} to run part of parameter combinations
+     *******************************************************************************************************************
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(new CommandLineOptions(args));
+        options.include(DiffAnalyserBenchmark.class.getSimpleName());
+        options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
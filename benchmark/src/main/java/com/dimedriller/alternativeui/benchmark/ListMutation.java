@@ -0,0 +1,158 @@
+package com.dimedriller.alternativeui.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ ***********************************************************************************************************************
+ * Changes of adapter items which happen between two data set change notifications. Items are {@link Integer} objects,
+ * so they are compared by value as items of real adapters. New items get negative values to differ from old ones.
+ ***********************************************************************************************************************
+ */
+public enum ListMutation {
+    APPEND {
+        @Override
+        public Object[] createItems(int itemsCount) {
+            return createUniqueItems(itemsCount);
+        }
+
+        @Override
+        public Object[] mutate(Object[] items, int firstItemIndex, int windowSize, Random random) {
+            Object[] newItems = new Object[items.length + windowSize];
+            System.arraycopy(items, 0, newItems, 0, items.length);
+            for(int counterItem = 0; counterItem < windowSize; counterItem++)
+                newItems[items.length + counterItem] = createNewItem(counterItem);
+            return newItems;
+        }
+    },
+    PREPEND {
+        @Override
+        public Object[] createItems(int itemsCount) {
+            return createUniqueItems(itemsCount);
+        }
+
+        @Override
+        public Object[] mutate(Object[] items, int firstItemIndex, int windowSize, Random random) {
+            Object[] newItems = new Object[items.length + windowSize];
+            for(int counterItem = 0; counterItem < windowSize; counterItem++)
+                newItems[counterItem] = createNewItem(counterItem);
+            System.arraycopy(items, 0, newItems, windowSize, items.length);
+            return newItems;
+        }
+    },
+    RANDOM_INSERT_DELETE {
+        @Override
+        public Object[] createItems(int itemsCount) {
+            return createUniqueItems(itemsCount);
+        }
+
+        @Override
+        public Object[] mutate(Object[] items, int firstItemIndex, int windowSize, Random random) {
+            return insertAndDelete(items, firstItemIndex, windowSize, random);
+        }
+    },
+    REORDER {
+        @Override
+        public Object[] createItems(int itemsCount) {
+            return createUniqueItems(itemsCount);
+        }
+
+        @Override
+        public Object[] mutate(Object[] items, int firstItemIndex, int windowSize, Random random) {
+            Object[] newItems = items.clone();
+            List<Object> window = Arrays.asList(newItems).subList(firstItemIndex, firstItemIndex + windowSize);
+            Collections.shuffle(window, random); // Sublist of array writes through to the array
+            return newItems;
+        }
+    },
+    REPLACE {
+        @Override
+        public Object[] createItems(int itemsCount) {
+            return createUniqueItems(itemsCount);
+        }
+
+        @Override
+        public Object[] mutate(Object[] items, int firstItemIndex, int windowSize, Random random) {
+            Object[] newItems = new Object[items.length];
+            for(int counterItem = 0; counterItem < newItems.length; counterItem++)
+                newItems[counterItem] = createNewItem(counterItem);
+            return newItems;
+        }
+    },
+    DUPLICATES {
+        private static final int DISTINCT_ITEMS_COUNT = 8;
+
+        @Override
+        public Object[] createItems(int itemsCount) {
+            Object[] items = new Object[itemsCount];
+            for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+                items[counterItem] = Integer.valueOf(counterItem % DISTINCT_ITEMS_COUNT);
+            return items;
+        }
+
+        @Override
+        public Object[] mutate(Object[] items, int firstItemIndex, int windowSize, Random random) {
+            Object[] newItems = insertAndDelete(items, firstItemIndex, windowSize, random);
+            for(int counterItem = 0; counterItem < newItems.length; counterItem++)
+                if (((Integer) newItems[counterItem]) < 0) // Inserted items duplicate existing ones as well
+                    newItems[counterItem] = Integer.valueOf(random.nextInt(DISTINCT_ITEMS_COUNT));
+            return newItems;
+        }
+    };
+
+    private static Object[] createUniqueItems(int itemsCount) {
+        Object[] items = new Object[itemsCount];
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+            items[counterItem] = Integer.valueOf(counterItem);
+        return items;
+    }
+
+    private static Object createNewItem(int index) {
+        return Integer.valueOf(-1 - index);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Inserts and deletes items at random positions around displayed window. Number of operations is about half of
+     * window size
+     *******************************************************************************************************************
+     */
+    private static Object[] insertAndDelete(Object[] items, int firstItemIndex, int windowSize, Random random) {
+        int regionStart = Math.max(0, firstItemIndex - windowSize);
+        int regionEnd = Math.min(items.length, firstItemIndex + 2 * windowSize);
+        ArrayList<Object> region = new ArrayList<Object>(Arrays.asList(items).subList(regionStart, regionEnd));
+
+        int operationsCount = windowSize / 2 + 1;
+        for(int counterOperation = 0; counterOperation < operationsCount; counterOperation++)
+            if (counterOperation % 2 == 0 || region.isEmpty())
+                region.add(random.nextInt(region.size() + 1), createNewItem(counterOperation));
+            else
+                region.remove(random.nextInt(region.size()));
+
+        Object[] newItems = new Object[items.length - (regionEnd - regionStart) + region.size()];
+        System.arraycopy(items, 0, newItems, 0, regionStart);
+        for(int counterItem = 0; counterItem < region.size(); counterItem++)
+            newItems[regionStart + counterItem] = region.get(counterItem);
+        System.arraycopy(items, regionEnd, newItems, regionStart + region.size(), items.length - regionEnd);
+        return newItems;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return adapter items before the change
+     *******************************************************************************************************************
+     */
+    public abstract Object[] createItems(int itemsCount);
+
+    /**
+     *******************************************************************************************************************
+     * @param firstItemIndex - index of the first displayed item
+     * @param windowSize - number of displayed items
+     * @return adapter items after the change. {@code items} are not modified
+     *******************************************************************************************************************
+     */
+    public abstract Object[] mutate(Object[] items, int firstItemIndex, int windowSize, Random random);
+}
@@ -17,14 +17,31 @@ public class AbsListState extends View.BaseSavedState {
         }
     };
 
+    public static final int SCROLL_OFFSET_UNKNOWN = -1;
+
     private final int mFirstItemIndex;
     private final int mFirstItemOffset;
+    private final int mScrollOffset; // Scroll position, number and average width of items let restore position when
+    private final int mItemsCount;   // number of items is changed
+    private final int mItemWidth;
 
-    public AbsListState(Parcelable parcelable, int firstItemIndex, int firstItemOffset) {
+    public AbsListState(Parcelable parcelable,
+            int firstItemIndex,
+            int firstItemOffset,
+            int scrollOffset,
+            int itemsCount,
+            int itemWidth) {
         super(parcelable);
 
         mFirstItemIndex = firstItemIndex;
         mFirstItemOffset = firstItemOffset;
+        mScrollOffset = scrollOffset;
+        mItemsCount = itemsCount;
+        mItemWidth = itemWidth;
+    }
+
+    public AbsListState(Parcelable parcelable, int firstItemIndex, int firstItemOffset) {
+        this(parcelable, firstItemIndex, firstItemOffset, SCROLL_OFFSET_UNKNOWN, 0, 0);
     }
 
     public AbsListState() {
@@ -32,12 +49,18 @@ public class AbsListState extends View.BaseSavedState {
 
         mFirstItemIndex = 0;
         mFirstItemOffset = 0;
+        mScrollOffset = SCROLL_OFFSET_UNKNOWN;
+        mItemsCount = 0;
+        mItemWidth = 0;
     }
 
     public AbsListState(Parcel source) {
         super(source);
         mFirstItemIndex = source.readInt();
         mFirstItemOffset = source.readInt();
+        mScrollOffset = source.readInt();
+        mItemsCount = source.readInt();
+        mItemWidth = source.readInt();
     }
 
     public int getFirstItemIndex() {
@@ -48,6 +71,18 @@ public class AbsListState extends View.BaseSavedState {
         return mFirstItemOffset;
     }
 
+    public int getScrollOffset() {
+        return mScrollOffset;
+    }
+
+    public int getItemsCount() {
+        return mItemsCount;
+    }
+
+    public int getItemWidth() {
+        return mItemWidth;
+    }
+
     @Override
     public int describeContents() {
         return super.describeContents();
@@ -59,5 +94,8 @@ public class AbsListState extends View.BaseSavedState {
 
         dest.writeInt(mFirstItemIndex);
         dest.writeInt(mFirstItemOffset);
+        dest.writeInt(mScrollOffset);
+        dest.writeInt(mItemsCount);
+        dest.writeInt(mItemWidth);
     }
 }
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.widget.EdgeEffectCompat;
 import android.util.AttributeSet;
@@ -11,6 +12,7 @@ import android.util.SparseArray;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.WindowManager;
 import android.widget.Adapter;
 import android.widget.AdapterView;
 import com.dimedriller.alternativeui.R;
@@ -19,6 +21,7 @@ import com.dimedriller.alternativeui.widget.Scroller;
 import com.dimedriller.alternativeui.widget.TouchInterceptionDetector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  ***********************************************************************************************************************
@@ -27,16 +30,31 @@ import java.util.ArrayList;
  */
 public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterView<A> {
     protected int mFirstGlobalItemIndex;
-    protected ArrayList<ItemInfo> mItems;
+    protected ItemInfoDeque mItems;
 
     /* This field is used only when state is restored */
     private int mFirstItemOffset;
+    private int mPendingScrollDistance; // Scroll started after layout of items placed by smoothScrollToPosition()
 
     private ItemInfoManager<A> mItemsManager;
 
     private final Scroller mScroller;
     private final GestureDetector mGestureDetector;
     private final MoveChildrenRunnable mMoveRunnable = new MoveChildrenRunnable(this);
+    private final RelayoutChildrenRunnable mRelayoutRunnable = new RelayoutChildrenRunnable(this);
+    private boolean mIsRelayoutPosted;
+    private boolean mIsSizeExact; // List view size does not depend on items, so their layout can be changed locally
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private final PrefetchItemsRunnable mPrefetchRunnable = new PrefetchItemsRunnable(this);
+    private int mPrefetchItemsCount;
+    private final ItemInfoDeque mPrefetchedItems = new ItemInfoDeque(); // Bound and measured items which are not
+    private int mPrefetchedFirstIndex;                                   // displayed yet. Their indices are successive
+    private int mPrefetchDirection; // 1 if items are scrolled left, -1 if they are scrolled right
+    private boolean mIsPrefetchRequested;
+    private long mPrefetchDeadline;
+    private long mFrameInterval;
     private final TouchInterceptionDetector mTouchInterceptionDetector = new TouchInterceptionDetector() {
         @Override
         protected boolean onDoInterception(float previousX, float previousY, float currentX, float currentY) {
@@ -49,6 +67,15 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
     private final EdgeEffectCompat mRightFadingEdge;
 
     private static final float VELOCITY_X_RATIO = 0.5f;
+    private static final int CONTENT_SCROLL_LIMIT = 1 << 16; // Content is moved back to view origin when it is
+                                                             // scrolled further, so coordinates stay small
+
+    public static final int ITEM_WIDTH_NOT_FIXED = 0;
+
+    private boolean mIsTranslationScrollEnabled;
+    private int mFixedItemWidth = ITEM_WIDTH_NOT_FIXED;
+    private final ItemWidthCache mItemWidthCache = new ItemWidthCache();
+    private final ItemWidthIndex mItemWidthIndex = new ItemWidthIndex();
 
     protected HorizontalAbsListView(Context context, AttributeSet attrs, int defStyle) {
         super(context, attrs, defStyle);
@@ -176,7 +203,127 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         }
 
         mItemsManager = createItemInfoManager(null);
-        mItems = new ArrayList<ItemInfo>(0);
+        mItems = new ItemInfoDeque(true);
+
+        float refreshRate = DEFAULT_REFRESH_RATE;
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (windowManager != null && windowManager.getDefaultDisplay().getRefreshRate() > 0)
+            refreshRate = windowManager.getDefaultDisplay().getRefreshRate();
+        mFrameInterval = Math.round(1000 / refreshRate);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Sets number of items beyond the displayed ones which are bound and measured in scroll direction after a frame is
+     * drawn, so items appearing on the next frames are only attached. Items are prefetched until the time of the frame
+     * is over, so drawing of the next frame is not delayed
+     * @param itemsCount - number of items prefetched or 0 if prefetching is disabled
+     *******************************************************************************************************************
+     */
+    public void setPrefetchItemsCount(int itemsCount) {
+        mPrefetchItemsCount = itemsCount;
+        if (itemsCount == 0)
+            discardPrefetchedItems();
+    }
+
+    public int getPrefetchItemsCount() {
+        return mPrefetchItemsCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return {@code true} if global indices of items can not change while items are prefetched and displayed
+     *******************************************************************************************************************
+     */
+    protected boolean isPrefetchAvailable() {
+        return true;
+    }
+
+    private void discardPrefetchedItems() {
+        ItemInfoDeque prefetchedItems = mPrefetchedItems;
+        ItemInfoManager itemsManager = mItemsManager;
+        while (!prefetchedItems.isEmpty())
+            itemsManager.recycleItemInfo(this, prefetchedItems.removeLast());
+    }
+
+    private boolean isItemPrefetched(int globalIndex) {
+        int prefetchedItemsCount = mPrefetchedItems.size();
+        return prefetchedItemsCount > 0
+                && (  globalIndex == mPrefetchedFirstIndex
+                   || globalIndex == mPrefetchedFirstIndex + prefetchedItemsCount - 1);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Takes prefetched item and adds its views to list view or creates a new one. Prefetched items are taken from the
+     * ends of prefetched range only, so the range stays successive
+     *******************************************************************************************************************
+     */
+    private ItemInfo obtainItemInfo(int globalIndex) {
+        if (!isItemPrefetched(globalIndex))
+            return mItemsManager.createItemInfo(this, globalIndex);
+
+        ItemInfoDeque prefetchedItems = mPrefetchedItems;
+        ItemInfo item;
+        if (globalIndex == mPrefetchedFirstIndex) {
+            item = prefetchedItems.removeFirst();
+            mPrefetchedFirstIndex++;
+        } else
+            item = prefetchedItems.removeLast();
+        mItemsManager.attachItemInfo(this, item);
+        return item;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Binds and measures items following displayed ones in scroll direction until the frame time is over
+     *******************************************************************************************************************
+     */
+    private void prefetchItems() {
+        ItemInfoDeque items = mItems;
+        if (  items.size() == 0
+           || isLayoutRequested()
+           || !isPrefetchAvailable()) {
+            discardPrefetchedItems();
+            return;
+        }
+
+        ItemInfoDeque prefetchedItems = mPrefetchedItems;
+        int direction = mPrefetchDirection;
+        int nextItemIndex = direction > 0 ? mFirstGlobalItemIndex + items.size() : mFirstGlobalItemIndex - 1;
+        int prefetchedItemsCount = prefetchedItems.size();
+        if (  prefetchedItemsCount > 0 // Prefetched items must follow displayed ones
+           && (direction > 0 ? mPrefetchedFirstIndex : mPrefetchedFirstIndex + prefetchedItemsCount - 1)
+                    != nextItemIndex)
+            discardPrefetchedItems();
+
+        ItemInfoManager itemsManager = mItemsManager;
+        int globalItemsCount = itemsManager.getItemInfoCount();
+        if (prefetchedItems.isEmpty())
+            mPrefetchedFirstIndex = direction > 0 ? nextItemIndex : nextItemIndex + 1;
+        int paddingLeft = getPaddingLeft();
+        int paddingTop = getPaddingTop();
+        long deadline = mPrefetchDeadline;
+        while (  prefetchedItems.size() < mPrefetchItemsCount
+              && SystemClock.uptimeMillis() < deadline) {
+            int itemIndex;
+            if (direction > 0)
+                itemIndex = mPrefetchedFirstIndex + prefetchedItems.size();
+            else
+                itemIndex = mPrefetchedFirstIndex - 1;
+            if (itemIndex < 0 || itemIndex >= globalItemsCount)
+                break;
+
+            ItemInfo item = itemsManager.bindItemInfo(this, itemIndex);
+            measureItem(item, itemIndex, true);
+            item.layoutViews(getWidthWithoutPaddings(), paddingLeft, paddingTop); // Views do not request layout once
+            if (direction > 0)                                                    // they are attached
+                prefetchedItems.add(item);
+            else {
+                prefetchedItems.addFirst(item);
+                mPrefetchedFirstIndex = itemIndex;
+            }
+        }
     }
 
     /**
@@ -195,14 +342,152 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         return mItemsManager;
     }
 
+    /**
+     *******************************************************************************************************************
+     * Enables scrolling of the whole content by {@link #scrollTo(int, int)} instead of offsetting every item view. Item
+     * views are touched only when they are added or removed, so every scroll frame takes constant time.
+     *******************************************************************************************************************
+     */
+    public void setTranslationScrollEnabled(boolean isEnabled) {
+        if (!isEnabled)
+            resetContentScroll();
+        mIsTranslationScrollEnabled = isEnabled;
+    }
+
+    public boolean isTranslationScrollEnabled() {
+        return mIsTranslationScrollEnabled;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Declares that every item has the same width. Items are measured exactly to the width, and offsets of items and
+     * scroll range are computed arithmetically instead of being collected from measured items
+     * @param width - width of every item in pixels or {@link #ITEM_WIDTH_NOT_FIXED} if items have different widths
+     *******************************************************************************************************************
+     */
+    public void setFixedItemWidth(int width) {
+        if (width == mFixedItemWidth)
+            return;
+
+        mFixedItemWidth = width;
+        invalidateItemWidths();
+        rebindItems();
+    }
+
+    public int getFixedItemWidth() {
+        return mFixedItemWidth;
+    }
+
+    public boolean isItemWidthFixed() {
+        return mFixedItemWidth != ITEM_WIDTH_NOT_FIXED;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Moves item views by content scroll and resets the scroll, so views are placed at their displayed positions again
+     *******************************************************************************************************************
+     */
+    private void resetContentScroll() {
+        int scrollX = getScrollX();
+        if (scrollX == 0)
+            return;
+
+        shiftItems(0, mItems.size(), -scrollX);
+        scrollTo(0, getScrollY());
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Forgets widths of adapter items measured before. It must be called whenever adapter data is changed
+     *******************************************************************************************************************
+     */
+    protected void invalidateItemWidths() {
+        mItemWidthCache.clear();
+        mItemWidthIndex.clear();
+        discardPrefetchedItems(); // They are bound to previous data or measured within previous size
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Shifts widths of adapter items measured before when items are inserted or removed. It is called instead of
+     * {@link #invalidateItemWidths()} when the change is known, so widths of other items are not forgotten
+     * @param position - adapter position of the first inserted or removed item
+     * @param itemsCountDelta - number of inserted items or negative number of removed items
+     *******************************************************************************************************************
+     */
+    protected void shiftItemWidths(int position, int itemsCountDelta) {
+        ItemInfoManager itemsManager = mItemsManager;
+        itemsManager.invalidateItemInfoCount();
+        discardPrefetchedItems(); // They are bound to previous positions
+        A adapter = getAdapter();
+        if (adapter == null || !adapter.hasStableIds())
+            mItemWidthCache.clear(); // Widths are cached by positions
+
+        ItemWidthIndex itemWidthIndex = mItemWidthIndex;
+        if (itemWidthIndex.getItemsCount() + itemsCountDelta != itemsManager.getItemInfoCount())
+            itemWidthIndex.clear(); // Index is not sized to the previous number of items
+        else if (itemsCountDelta > 0)
+            itemWidthIndex.insertItems(position, itemsCountDelta);
+        else
+            itemWidthIndex.removeItems(position, -itemsCountDelta);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return index of item widths sized to the current number of items
+     *******************************************************************************************************************
+     */
+    private ItemWidthIndex getItemWidthIndex() {
+        ItemWidthIndex itemWidthIndex = mItemWidthIndex;
+        itemWidthIndex.setItemsCount(mItemsManager.getItemInfoCount());
+        return itemWidthIndex;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return distance from the start of the first item to the start of item at {@code globalIndex}. Widths of items
+     * which have never been measured are estimated as average width of measured items
+     *******************************************************************************************************************
+     */
+    protected int getItemOffset(int globalIndex) {
+        if (isItemWidthFixed())
+            return clampToInt((long) mFixedItemWidth * globalIndex);
+
+        return clampToInt(getItemWidthIndex().getOffset(globalIndex));
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return global index of item placed at {@code offset} from the start of the first item or -1 if there are no
+     * items. Widths of items which have never been measured are estimated as average width of measured items
+     *******************************************************************************************************************
+     */
+    protected int findGlobalItemIndexByOffset(int offset) {
+        if (!isItemWidthFixed())
+            return getItemWidthIndex().findPosition(offset);
+
+        int itemsCount = mItemsManager.getItemInfoCount();
+        if (itemsCount == 0)
+            return -1;
+        return Math.max(0, Math.min(offset / mFixedItemWidth, itemsCount - 1));
+    }
+
+    private static int clampToInt(long value) {
+        return value > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) value;
+    }
+
     @Override
     public void setAdapter(A adapter) {
+        discardPrefetchedItems();
         mItemsManager = createItemInfoManager(adapter);
+        invalidateItemWidths();
 
         removeAllViewsInLayout();
+        scrollTo(0, getScrollY());
 
         mFirstGlobalItemIndex = 0;
-        mItems = new ArrayList<ItemInfo>();
+        mPendingScrollDistance = 0;
+        mItems = new ItemInfoDeque(true);
         requestLayout();
     }
 
@@ -219,13 +504,67 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
 
     @Override
     public void setSelection(int position) {
-        // TODO: Implement this method
+        setSelection(position, 0);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Displays item at {@code position} without scrolling. Items between displayed ones and the selected one are not
+     * created
+     * @param offset - distance from the left padding to the left side of the item
+     *******************************************************************************************************************
+     */
+    public void setSelection(int position, int offset) {
+        stopScrolling();
+        int itemsCount = mItemsManager.getItemInfoCount();
+        resetItems(Math.max(0, Math.min(position, itemsCount - 1)), offset);
+    }
+
+    public void smoothScrollToPosition(int position) {
+        smoothScrollToPosition(position, 0);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Scrolls list until item at {@code position} is placed at {@code offset}. If the item is not displayed, list
+     * jumps to the item placed one view width away from {@code offset} and scrolls only the last view width, so items
+     * in between are not created
+     * @param offset - distance from the left padding to the left side of the item
+     *******************************************************************************************************************
+     */
+    public void smoothScrollToPosition(int position, int offset) {
+        ItemInfoDeque items = mItems;
+        int itemsCount = mItemsManager.getItemInfoCount();
+        if (items.size() == 0 || itemsCount == 0) {
+            setSelection(position, offset);
+            return;
+        }
+
+        position = Math.max(0, Math.min(position, itemsCount - 1));
+        int firstGlobalItemIndex = mFirstGlobalItemIndex;
+        int itemIndex = position - firstGlobalItemIndex;
+        if (itemIndex >= 0 && itemIndex < items.size()) {
+            stopScrolling();
+            hidePressedState();
+            mScroller.startScroll(0, 0, items.get(itemIndex).getLeft() - offset, 0);
+            post(mMoveRunnable);
+            return;
+        }
+
+        int scrollDistance = position > firstGlobalItemIndex ? getWidthWithoutPaddings() : -getWidthWithoutPaddings();
+        setSelection(position, offset + scrollDistance);
+        mPendingScrollDistance = scrollDistance;
     }
 
     @Override
     protected Parcelable onSaveInstanceState() {
         Parcelable parcelable = super.onSaveInstanceState();
-        return new AbsListState(parcelable, mFirstGlobalItemIndex, getFirstItemOffset());
+        return new AbsListState(parcelable,
+                mFirstGlobalItemIndex,
+                getFirstItemOffset(),
+                computeHorizontalScrollOffset(),
+                mItemsManager.getItemInfoCount(),
+                mItemWidthIndex.getEstimatedWidth());
     }
 
     @Override
@@ -234,6 +573,24 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         super.onRestoreInstanceState(listState.getSuperState());
         mFirstGlobalItemIndex = listState.getFirstItemIndex();
         mFirstItemOffset = listState.getFirstItemOffset();
+
+        // Item at saved index may belong to other part of changed data, so position is restored by scroll offset. Item
+        // widths are not measured yet, so average width of saved items is used
+        int itemsCount = mItemsManager.getItemInfoCount();
+        int scrollOffset = listState.getScrollOffset();
+        if (  itemsCount == 0
+           || listState.getItemsCount() == itemsCount
+           || scrollOffset == AbsListState.SCROLL_OFFSET_UNKNOWN)
+            return;
+        if (!isItemWidthFixed()) {
+            if (listState.getItemWidth() <= 0)
+                return;
+            getItemWidthIndex().setEstimatedWidth(listState.getItemWidth());
+        }
+
+        int firstItemIndex = findGlobalItemIndexByOffset(scrollOffset);
+        mFirstGlobalItemIndex = firstItemIndex;
+        mFirstItemOffset = getItemOffset(firstItemIndex) - scrollOffset;
     }
 
     @Override
@@ -260,13 +617,23 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         // Do not dispatch press state to the children. The list view is responsible for setting press state
     }
 
+    /**
+     *******************************************************************************************************************
+     * Items are laid out one after another, so their left sides are sorted and the item is found by binary search.
+     * Items preceding the found one are checked as well because animated items can be narrower than their views.
+     *******************************************************************************************************************
+     */
     private int findItemInfoIndexByXY(int x, int y) {
-        ArrayList<ItemInfo> items = mItems;
-        int countItems = items.size();
-        for (int counter = 0; counter < countItems; counter++)
-            if (items.get(counter).containsXY(x, y))
-                return counter;
-        return -1;
+        ItemInfoDeque items = mItems;
+        int foundIndex = -1;
+        for(int counterItem = items.findLastIndexByLeft(x + getScrollX()); counterItem >= 0; counterItem--) {
+            ItemInfo item = items.get(counterItem);
+            if (item.containsXY(x, y))
+                foundIndex = counterItem;
+            else if (item.getLeft() + item.getWidth() < x)
+                break;
+        }
+        return foundIndex;
     }
 
     private ItemInfo findItemInfoByXY(int x, int y) {
@@ -280,18 +647,48 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
     public void stopScrolling() {
         mScroller.forceFinished(true);
         removeCallbacks(mMoveRunnable);
+        mPendingScrollDistance = 0;
     }
 
     protected int getFirstItemOffset() {
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         if (items.size() == 0)
             return 0;
         else
             return items.get(0).getLeft();
     }
 
+    /**
+     *******************************************************************************************************************
+     * Recycles displayed items and requests layout which binds adapter items starting from the same position to
+     * recycled views. The first item keeps its offset
+     *******************************************************************************************************************
+     */
+    protected void rebindItems() {
+        resetItems(mFirstGlobalItemIndex, getFirstItemOffset());
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Recycles displayed items and requests layout which binds adapter items starting from {@code firstGlobalItemIndex}
+     * @param firstItemOffset - left side of the first item after layout
+     *******************************************************************************************************************
+     */
+    private void resetItems(int firstGlobalItemIndex, int firstItemOffset) {
+        discardPrefetchedItems();
+        ItemInfoDeque items = mItems;
+        ItemInfoManager itemsManager = mItemsManager;
+        for(int counterItem = items.size() - 1; counterItem >= 0; counterItem--)
+            itemsManager.recycleItemInfo(this, items.removeLast());
+        scrollTo(0, getScrollY());
+
+        mFirstGlobalItemIndex = firstGlobalItemIndex;
+        mFirstItemOffset = firstItemOffset;
+        requestLayout();
+    }
+
     protected int getLastItemRight() {
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         int numItems = items.size();
         if (numItems == 0)
             return 0;
@@ -308,7 +705,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
     }
 
     protected int getDisplayedItemsFullWidth() {
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         int itemsCount = items.size();
         if (itemsCount == 0)
             return 0;
@@ -326,13 +723,17 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
      *******************************************************************************************************************
      */
     protected void shiftItems(int itemFirstIndex, int itemsCount, int dX) {
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         int allItemsCount = items.size();
 
         if (itemFirstIndex + itemsCount > allItemsCount)
             itemsCount = allItemsCount - itemFirstIndex;
+        if (itemsCount <= 0)
+            return;
+
+        items.offsetBounds(itemFirstIndex, itemsCount, dX);
         for (int counterItem = itemFirstIndex; counterItem < itemFirstIndex + itemsCount; counterItem++)
-            items.get(counterItem).offsetViews(dX);
+            items.get(counterItem).onOffsetViews(dX);
     }
 
     /**
@@ -342,29 +743,83 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
      *******************************************************************************************************************
      */
     protected void shiftItems(int dX) {
-        shiftItems(0, mItems.size(), dX);
+        if (!mIsTranslationScrollEnabled) {
+            shiftItems(0, mItems.size(), dX);
+            return;
+        }
+
+        int scrollX = getScrollX() - dX;
+        scrollTo(scrollX, getScrollY());
+        if (Math.abs(scrollX) > CONTENT_SCROLL_LIMIT)
+            resetContentScroll();
     }
 
-    private int measureAndLayoutItemLeft(ItemInfo item, int itemRightX) {
-        int paddingLeft = getPaddingLeft();
-        int paddingTop = getPaddingTop();
+    /**
+     *******************************************************************************************************************
+     * Measures item views within the list view. If item width is fixed they are measured exactly to that width
+     *******************************************************************************************************************
+     */
+    protected void measureItemViews(ItemInfo item) {
         int viewWidthWithoutPadding = getWidthWithoutPaddings();
-        int viewHeightWithoutPadding = getHeight() - paddingTop - getPaddingBottom();
-
-        item.measureViews(viewWidthWithoutPadding, viewHeightWithoutPadding);
-        item.layoutViews(itemRightX - item.getWidth(), paddingLeft, paddingTop);
-        return item.getWidth();
+        int viewHeightWithoutPadding = getHeightWithoutPaddings();
+        if (isItemWidthFixed())
+            item.measureViews(viewWidthWithoutPadding, viewHeightWithoutPadding, mFixedItemWidth);
+        else
+            item.measureViews(viewWidthWithoutPadding, viewHeightWithoutPadding);
+        item.setMeasureSpecs(viewWidthWithoutPadding, viewHeightWithoutPadding, mFixedItemWidth);
+    }
 
+    /**
+     *******************************************************************************************************************
+     * @return {@code false} if displayed item was measured within the same list view size and item width mode and
+     * its views have not requested layout since then, so measuring it again gives the same result
+     *******************************************************************************************************************
+     */
+    protected boolean isItemMeasureRequired(ItemInfo item) {
+        return item.isMeasureRequired(getWidthWithoutPaddings(), getHeightWithoutPaddings(), mFixedItemWidth);
     }
 
-    private int measureAndLayoutItemRight(ItemInfo item, int itemLeftX) {
-        int paddingLeft = getPaddingLeft();
-        int paddingTop = getPaddingTop();
+    /**
+     *******************************************************************************************************************
+     * Measures item views. Item which has just been bound to adapter item whose width is already known is measured
+     * exactly to that width, so its views need not compute their desired width
+     * @param isNewItem - {@code true} if views are bound to adapter item right now. Otherwise the item is measured
+     * again because its views requested that, so the known width is ignored and updated
+     *******************************************************************************************************************
+     */
+    private void measureItem(ItemInfo item, int globalIndex, boolean isNewItem) {
+        if (!isNewItem && !isItemMeasureRequired(item))
+            return;
+
         int viewWidthWithoutPadding = getWidthWithoutPaddings();
-        int viewHeightWithoutPadding = getHeight() - paddingTop - getPaddingBottom();
+        int viewHeightWithoutPadding = getHeightWithoutPaddings();
+        if (isItemWidthFixed()) { // Neither cache nor index is needed
+            measureItemViews(item);
+            return;
+        }
+
+        A adapter = getAdapter();
+        long widthKey = adapter.hasStableIds() ? adapter.getItemId(globalIndex) : globalIndex;
+        ItemWidthCache itemWidthCache = mItemWidthCache;
+        int knownWidth = isNewItem ? itemWidthCache.get(widthKey) : ItemWidthCache.WIDTH_UNKNOWN;
+        if (knownWidth == ItemWidthCache.WIDTH_UNKNOWN) {
+            item.measureViews(viewWidthWithoutPadding, viewHeightWithoutPadding);
+            itemWidthCache.put(widthKey, item.getWidth());
+        } else
+            item.measureViews(viewWidthWithoutPadding, viewHeightWithoutPadding, knownWidth);
+        item.setMeasureSpecs(viewWidthWithoutPadding, viewHeightWithoutPadding, ITEM_WIDTH_NOT_FIXED);
+        getItemWidthIndex().setWidth(globalIndex, item.getWidth());
+    }
+
+    private int measureAndLayoutItemLeft(ItemInfo item, int globalIndex, boolean isNewItem, int itemRightX) {
+        measureItem(item, globalIndex, isNewItem);
+        item.layoutViews(itemRightX - item.getWidth(), getPaddingLeft(), getPaddingTop());
+        return item.getWidth();
+    }
 
-        item.measureViews(viewWidthWithoutPadding, viewHeightWithoutPadding);
-        item.layoutViews(itemLeftX, paddingLeft, paddingTop);
+    private int measureAndLayoutItemRight(ItemInfo item, int globalIndex, boolean isNewItem, int itemLeftX) {
+        measureItem(item, globalIndex, isNewItem);
+        item.layoutViews(itemLeftX, getPaddingLeft(), getPaddingTop());
         return item.getWidth();
     }
 
@@ -380,16 +835,17 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         int firstItemX = getFirstItemOffset();
 
         ItemInfoManager itemsManager = mItemsManager;
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         int nextItemIndex = mFirstGlobalItemIndex + items.size();
         int countGlobalItems = itemsManager.getItemInfoCount();
         int currentRight = firstItemX - dX + getDisplayedItemsFullWidth();
 
         while (  currentRight < viewWidthWithoutPadding
               && nextItemIndex < countGlobalItems) {
-            ItemInfo newItem = itemsManager.createItemInfo(this, nextItemIndex);
+            boolean isNewItem = !isItemPrefetched(nextItemIndex);
+            ItemInfo newItem = obtainItemInfo(nextItemIndex);
             items.add(newItem);
-            currentRight += measureAndLayoutItemRight(newItem, currentRight + dX);
+            currentRight += measureAndLayoutItemRight(newItem, nextItemIndex, isNewItem, currentRight + dX);
             nextItemIndex++;
         }
 
@@ -412,7 +868,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
      */
     protected void removeItemsLeft(int dX) {
         ItemInfoManager itemsManager = mItemsManager;
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
 
         ItemInfo itemToRemove = items.get(0);
         int firstGlobalItemIndex = mFirstGlobalItemIndex;
@@ -420,7 +876,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
 
         while (currentLeft + itemToRemove.getWidth() < 0) {
             currentLeft += itemToRemove.getWidth();
-            items.remove(0);
+            items.removeFirst();
             itemsManager.recycleItemInfo(this, itemToRemove);
             itemToRemove = items.get(0);
             firstGlobalItemIndex++;
@@ -452,17 +908,17 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
     protected int addItemsLeft(int dX) {
         int firstItemX = getFirstItemOffset();
 
-        ItemInfoManager itemsManager = mItemsManager;
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         int firstGlobalItemIndex = mFirstGlobalItemIndex;
         int nextItemIndex = firstGlobalItemIndex - 1;
         int currentLeft = firstItemX - dX;
 
         while (  currentLeft >= 0
               && nextItemIndex >= 0) {
-            ItemInfo newItem = itemsManager.createItemInfo(this, nextItemIndex);
-            items.add(0, newItem);
-            currentLeft -= measureAndLayoutItemLeft(newItem, currentLeft + dX);
+            boolean isNewItem = !isItemPrefetched(nextItemIndex);
+            ItemInfo newItem = obtainItemInfo(nextItemIndex);
+            items.addFirst(newItem);
+            currentLeft -= measureAndLayoutItemLeft(newItem, nextItemIndex, isNewItem, currentLeft + dX);
             nextItemIndex--;
         }
         firstGlobalItemIndex = nextItemIndex + 1;
@@ -482,7 +938,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
      */
     protected void removeItemsRight(int dX) {
         ItemInfoManager itemsManager = mItemsManager;
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
 
         int indexToRemove = items.size() - 1;
         ItemInfo itemToRemove = items.get(indexToRemove);
@@ -491,7 +947,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
 
         while (currentRight - itemToRemove.getWidth() > viewWidthWithoutPadding) {
             currentRight -= itemToRemove.getWidth();
-            items.remove(indexToRemove);
+            items.removeLast();
             itemsManager.recycleItemInfo(this, itemToRemove);
             indexToRemove--;
             itemToRemove = items.get(indexToRemove);
@@ -520,6 +976,11 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         int deltaX = endX - startX;
         int widthWithoutPaddings = getWidthWithoutPaddings();
 
+        if (deltaX != 0) {
+            mPrefetchDirection = deltaX > 0 ? 1 : -1;
+            mIsPrefetchRequested = mPrefetchItemsCount > 0;
+        }
+
         boolean forceFinished = false;
         if (deltaX > 0) {
             if (deltaX > widthWithoutPaddings)
@@ -539,7 +1000,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
     }
 
     private void hidePressedState() {
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         int countItems = mItems.size();
         for (int counter = 0; counter < countItems; counter++)
             items.get(counter).hidePressed();
@@ -569,13 +1030,15 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        mIsSizeExact = widthMode == MeasureSpec.EXACTLY && heightMode == MeasureSpec.EXACTLY;
+
         ItemInfoManager itemsManager = mItemsManager;
         int itemsCount = itemsManager.getItemInfoCount();
         if (itemsCount == 0)
             return;
 
-        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
-        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int widthSize = MeasureSpec.getSize(widthMeasureSpec);
         int heightSize = MeasureSpec.getSize(heightMeasureSpec);
 
@@ -588,14 +1051,14 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         if (itemsCount > 0
                 && (widthMode != MeasureSpec.EXACTLY
                 || heightMode != MeasureSpec.EXACTLY)) {
-            ArrayList<ItemInfo> existingItems = mItems;
+            ItemInfoDeque existingItems = mItems;
             ItemInfo child;
             if (existingItems.size() > 0)
                 child = existingItems.get(0);
             else
                 child = itemsManager.createItemInfo(this, 0);
 
-            childWidth = child.getWidth();
+            childWidth = isItemWidthFixed() ? mFixedItemWidth : child.getWidth();
             child.measureViewsBySpecs(widthMeasureSpec, horizontalPaddings, heightMeasureSpec, verticalPaddings);
             childHeight = child.getHeight();
 
@@ -616,6 +1079,12 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         setMeasuredDimension(widthSize, heightSize);
     }
 
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        invalidateItemWidths(); // Item widths may depend on list view size
+    }
+
     @Override
     protected void onLayout(boolean isChanged, int l, int t, int r, int b) {
         ItemInfoManager itemsManager = mItemsManager;
@@ -624,7 +1093,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
             return;
 
         int viewWidthWithoutPadding = getWidthWithoutPaddings();
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         int firstItemOffset = getFirstItemOffset() + mFirstItemOffset;
         mFirstItemOffset = 0;
         int currentRight = firstItemOffset;
@@ -639,13 +1108,14 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
               && currentIndex < globalItemsCount) {
             int listItemIndex = currentIndex - firstGlobalItemIndex;
             ItemInfo currentItem;
-            if (listItemIndex < items.size())
-                currentItem = items.get(listItemIndex);
-            else {
-                currentItem = itemsManager.createItemInfo(this, currentIndex);
+            boolean isNewItem = listItemIndex >= items.size();
+            if (isNewItem) {
+                isNewItem = !isItemPrefetched(currentIndex);
+                currentItem = obtainItemInfo(currentIndex);
                 items.add(currentItem);
-            }
-            currentRight += measureAndLayoutItemRight(currentItem, currentRight);
+            } else
+                currentItem = items.get(listItemIndex);
+            currentRight += measureAndLayoutItemRight(currentItem, currentIndex, isNewItem, currentRight);
             currentIndex++;
         }
 
@@ -655,9 +1125,10 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
             while (itemsFullWidth < viewWidthWithoutPadding
                     && firstGlobalItemIndex > 0) {
                 firstGlobalItemIndex--;
-                ItemInfo item = itemsManager.createItemInfo(this, firstGlobalItemIndex);
-                items.add(0, item);
-                currentLeft -= measureAndLayoutItemLeft(item, currentLeft);
+                boolean isNewItem = !isItemPrefetched(firstGlobalItemIndex);
+                ItemInfo item = obtainItemInfo(firstGlobalItemIndex);
+                items.addFirst(item);
+                currentLeft -= measureAndLayoutItemLeft(item, firstGlobalItemIndex, isNewItem, currentLeft);
                 itemsFullWidth += item.getWidth();
             }
             mFirstGlobalItemIndex = firstGlobalItemIndex;
@@ -670,9 +1141,18 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
             shiftItems(horizontalOffset);
         } else
             while (currentIndex - firstGlobalItemIndex < items.size()) {
-                ItemInfo currentItem = items.remove(items.size() - 1);
+                ItemInfo currentItem = items.removeLast();
                 itemsManager.recycleItemInfo(this, currentItem);
             }
+
+        int pendingScrollDistance = mPendingScrollDistance;
+        if (pendingScrollDistance != 0) {
+            mPendingScrollDistance = 0;
+            addItemsLeft(0); // Target item is placed to the right of the view, so items on its left are added
+            hidePressedState();
+            mScroller.startScroll(0, 0, pendingScrollDistance, 0);
+            post(mMoveRunnable);
+        }
     }
 
     private boolean drawEdge(Canvas canvas, EdgeEffectCompat edge, float rotation, float offsetX, float offsetY) {
@@ -708,7 +1188,17 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
     @Override
     protected void dispatchDraw(Canvas canvas) {
         super.dispatchDraw(canvas);
+
+        if (mIsPrefetchRequested) { // Runnable posted while frame is drawn is run after the frame
+            mIsPrefetchRequested = false;
+            mPrefetchDeadline = getDrawingTime() + mFrameInterval;
+            post(mPrefetchRunnable);
+        }
+
+        int restoreCount = canvas.save(); // Edges are not scrolled with content
+        canvas.translate(getScrollX(), 0);
         drawEdges(canvas);
+        canvas.restoreToCount(restoreCount);
     }
 
     @Override
@@ -728,7 +1218,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         if (mFirstGlobalItemIndex != 0)
             return 1.0f;
 
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         if (items.size() == 0)
             return 0.0f;
         return (float) - getFirstItemOffset() / items.get(0).getWidth();
@@ -736,7 +1226,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
 
     @Override
     protected float getRightFadingEdgeStrength() {
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
         int itemsGlobalCount = mItemsManager.getItemInfoCount();
         int itemsVisibleCount = items.size();
 
@@ -756,20 +1246,115 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
 
     @Override
     protected int computeHorizontalScrollRange() {
-        ArrayList<ItemInfo> items = mItems;
-        if (items.size() == 0)
+        if (mItems.size() == 0)
             return 0;
 
-        return items.get(0).getWidth() * mItemsManager.getItemInfoCount();
+        if (isItemWidthFixed())
+            return clampToInt((long) mFixedItemWidth * mItemsManager.getItemInfoCount());
+        return clampToInt(getItemWidthIndex().getTotalWidth());
     }
 
     @Override
     protected int computeHorizontalScrollOffset() {
-        ArrayList<ItemInfo> items = mItems;
-        if (items.size() == 0)
+        if (mItems.size() == 0)
             return 0;
 
-        return items.get(0).getWidth() * mFirstGlobalItemIndex - getFirstItemOffset();
+        // Estimated widths may place displayed items beyond the range, so the offset is kept within it
+        int scrollOffset = getItemOffset(mFirstGlobalItemIndex) - getFirstItemOffset();
+        int scrollOffsetMax = computeHorizontalScrollRange() - computeHorizontalScrollExtent();
+        return Math.max(0, Math.min(scrollOffset, scrollOffsetMax));
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return {@code true} if layout requested by item views can be handled by list view without layout of its parent
+     *******************************************************************************************************************
+     */
+    protected boolean isLocalRelayoutAvailable() {
+        return true;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Item view requests layout of list view right after it requested its own layout, so the request comes from item
+     * view only if there is an item whose views requested layout which has not been posted yet. The item is marked as
+     * posted until it is laid out
+     *******************************************************************************************************************
+     */
+    private boolean postItemLayoutRequest() {
+        ItemInfoDeque items = mItems;
+        int itemsCount = items.size();
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+            if (items.get(counterItem).postLayoutRequest())
+                return true;
+        return false;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Layout requested by item view is not propagated to parent if list view size does not depend on items. Changed
+     * items are measured and laid out by {@link #relayoutItems()} instead. Requests of list view itself are always
+     * propagated. Items are checked only while list view layout is not requested, and item views request layout of
+     * parent only then, so items are checked once per item request
+     *******************************************************************************************************************
+     */
+    @Override
+    public void requestLayout() {
+        if (  mIsSizeExact
+           && !isLayoutRequested()
+           && isLocalRelayoutAvailable()
+           && postItemLayoutRequest()) {
+            if (!mIsRelayoutPosted) {
+                mIsRelayoutPosted = true;
+                post(mRelayoutRunnable);
+            }
+            return;
+        }
+
+        super.requestLayout();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Measures again items whose views requested layout. Following items are shifted by change of item width, and items
+     * are added or removed at the right edge
+     *******************************************************************************************************************
+     */
+    private void relayoutItems() {
+        mIsRelayoutPosted = false;
+        if (isLayoutRequested() || !isLocalRelayoutAvailable()) // Full layout is coming
+            return;
+
+        ItemInfoDeque items = mItems;
+        int itemsCount = items.size();
+        if (itemsCount == 0)
+            return;
+
+        int firstGlobalItemIndex = mFirstGlobalItemIndex;
+        int paddingLeft = getPaddingLeft();
+        int paddingTop = getPaddingTop();
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            ItemInfo item = items.get(counterItem);
+            if (!item.isLayoutRequested())
+                continue;
+
+            int oldWidth = item.getWidth();
+            measureItem(item, firstGlobalItemIndex + counterItem, false);
+            item.layoutViews(item.getLeft(), paddingLeft, paddingTop);
+            int widthDelta = item.getWidth() - oldWidth;
+            if (widthDelta != 0)
+                shiftItems(counterItem + 1, itemsCount - counterItem - 1, widthDelta);
+        }
+
+        addItemsRight(0);
+        removeItemsRight(0);
+        int gap = getWidthWithoutPaddings() - getLastItemRight();
+        if (gap > 0) { // The last adapter item is displayed, so items are moved right to fill the gap
+            int dX = addItemsLeft(-gap);
+            removeItemsRight(dX);
+            shiftItems(-dX);
+        }
+        invalidate();
     }
 
     protected boolean isTapItemAvailable() {
@@ -796,11 +1381,35 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         private int mWidth;
         private int mHeight;
 
-        private int mLeft;
-        private int mTop;
+        private int mLeft; // Horizontal coordinates are kept in content scrolled by list view. Getters return
+        private int mTop;  // coordinates relative to the list view
         private int mRight;
+        private ItemInfoDeque mBoundsDeque; // Deque of displayed items which stores horizontal coordinates instead of
+        private int mBoundsSlot;            // the fields while the item is there
 
         private boolean mIsRecyclingAvailable;
+        private HorizontalAbsListView mListView;
+
+        private int mMeasuredParentWidth = -1; // Sizes and fixed item width which views were measured with. Views
+        private int mMeasuredParentHeight = -1; // bound to another adapter item are always measured, so they are not
+        private int mMeasuredFixedWidth;        // reset on recycling
+        private boolean mIsLayoutRequestPosted; // Layout requested by views is already handled by posted relayout
+
+        protected void setListView(HorizontalAbsListView listView) {
+            mListView = listView;
+        }
+
+        protected HorizontalAbsListView getListView() {
+            return mListView;
+        }
+
+        private int getContentScrollX() {
+            HorizontalAbsListView listView = mListView;
+            if (listView == null)
+                return 0;
+            else
+                return listView.getScrollX();
+        }
 
         protected void setWidth(int width) {
             mWidth = width;
@@ -818,12 +1427,33 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
             return mHeight;
         }
 
+        private int getContentLeft() {
+            ItemInfoDeque boundsDeque = mBoundsDeque;
+            return boundsDeque == null ? mLeft : boundsDeque.mLefts[mBoundsSlot];
+        }
+
+        private int getContentRight() {
+            ItemInfoDeque boundsDeque = mBoundsDeque;
+            return boundsDeque == null ? mRight : boundsDeque.mRights[mBoundsSlot];
+        }
+
+        private void setContentBounds(int left, int right) {
+            ItemInfoDeque boundsDeque = mBoundsDeque;
+            if (boundsDeque == null) {
+                mLeft = left;
+                mRight = right;
+            } else {
+                boundsDeque.mLefts[mBoundsSlot] = left;
+                boundsDeque.mRights[mBoundsSlot] = right;
+            }
+        }
+
         public int getLeft() {
-            return mLeft;
+            return getContentLeft() - getContentScrollX();
         }
 
         public int getRight() {
-            return mRight;
+            return getContentRight() - getContentScrollX();
         }
 
         public int getTop() {
@@ -845,13 +1475,61 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
 
         public abstract void measureViews(int parentWidth, int parentHeight);
 
+        /**
+         ***************************************************************************************************************
+         * Measures views whose width is known in advance: from previous measurement of the same adapter item or from
+         * fixed item width. By default the width is ignored and views are measured as usual
+         ***************************************************************************************************************
+         */
+        public void measureViews(int parentWidth, int parentHeight, int knownWidth) {
+            measureViews(parentWidth, parentHeight);
+        }
+
+        public void setMeasureSpecs(int parentWidth, int parentHeight, int fixedWidth) {
+            mMeasuredParentWidth = parentWidth;
+            mMeasuredParentHeight = parentHeight;
+            mMeasuredFixedWidth = fixedWidth;
+        }
+
+        public boolean isMeasureRequired(int parentWidth, int parentHeight, int fixedWidth) {
+            return parentWidth != mMeasuredParentWidth
+                    || parentHeight != mMeasuredParentHeight
+                    || fixedWidth != mMeasuredFixedWidth
+                    || isLayoutRequested();
+        }
+
+        /**
+         ***************************************************************************************************************
+         * @return {@code true} if any item view requested layout since it was laid out last time. Subclasses which
+         * create views should check them, by default items have nothing to lay out
+         ***************************************************************************************************************
+         */
+        protected boolean isLayoutRequested() {
+            return false;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Marks layout requested by item views as handled, so it is not reported again until the item is laid out
+         * @return {@code true} if item views requested layout which has not been handled yet
+         ***************************************************************************************************************
+         */
+        private boolean postLayoutRequest() {
+            if (mIsLayoutRequestPosted || !isLayoutRequested())
+                return false;
+
+            mIsLayoutRequestPosted = true;
+            return true;
+        }
+
         protected abstract void onLayoutViews(int left, int top, int width);
 
         public void layoutViews(int left, int paddingLeft, int paddingTop, int width) {
-            mLeft = left;
+            int contentLeft = left + getContentScrollX();
+            setContentBounds(contentLeft, contentLeft + width);
             mTop = 0;
-            mRight = left + width;
-            onLayoutViews(left + paddingLeft, paddingTop, width);
+            mIsLayoutRequestPosted = false;
+            onLayoutViews(contentLeft + paddingLeft, paddingTop, width);
         }
 
         public void layoutViews(int left, int paddingLeft, int paddingTop) {
@@ -861,13 +1539,12 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         protected abstract void onOffsetViews(int dX);
 
         public void offsetViews(int dX) {
-            mLeft += dX;
-            mRight += dX;
+            setContentBounds(getContentLeft() + dX, getContentRight() + dX);
             onOffsetViews(dX);
         }
 
         public boolean containsXY(int x, int y) {
-            int left = mLeft;
+            int left = getLeft();
             int top = mTop;
             return x >= left
                     && x <= left + mWidth
@@ -962,10 +1639,569 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         }
     }
 
+    /**
+     *******************************************************************************************************************
+     * Double ended queue of items based on circular buffer. Items are added and removed at both ends in constant time
+     * as it happens while list is scrolled, and they are accessed by index. Insertion and removal in the middle shift
+     * the shorter part of the queue
+     *******************************************************************************************************************
+     */
+    protected static class ItemInfoDeque {
+        private static final int MIN_CAPACITY = 16;
+
+        private ItemInfo[] mItems; // Capacity is power of 2, so indices are wrapped by mask
+        private int mHead;
+        private int mSize;
+
+        // Horizontal content coordinates of items stored in the same slots as items. They are kept only by deque of
+        // displayed items, so items are shifted and searched by position without visiting item objects
+        private int[] mLefts;
+        private int[] mRights;
+
+        public ItemInfoDeque() {
+            this(false);
+        }
+
+        /**
+         ***************************************************************************************************************
+         * @param isBoundsStored - if {@code true} the deque stores horizontal coordinates of its items. An item can be
+         * kept by one such deque at a time
+         ***************************************************************************************************************
+         */
+        public ItemInfoDeque(boolean isBoundsStored) {
+            mItems = new ItemInfo[MIN_CAPACITY];
+            if (isBoundsStored) {
+                mLefts = new int[MIN_CAPACITY];
+                mRights = new int[MIN_CAPACITY];
+            }
+        }
+
+        private int toArrayIndex(int index) {
+            return (mHead + index) & (mItems.length - 1);
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Stores item to array slot. Coordinates of the item are moved to the deque
+         ***************************************************************************************************************
+         */
+        private void putItem(int arrayIndex, ItemInfo item) {
+            mItems[arrayIndex] = item;
+            if (mLefts == null || item == null)
+                return;
+
+            mLefts[arrayIndex] = item.getContentLeft();
+            mRights[arrayIndex] = item.getContentRight();
+            item.mBoundsDeque = this;
+            item.mBoundsSlot = arrayIndex;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Clears array slot. Coordinates of the item are moved back to the item
+         ***************************************************************************************************************
+         */
+        private ItemInfo takeItem(int arrayIndex) {
+            ItemInfo item = mItems[arrayIndex];
+            mItems[arrayIndex] = null;
+            if (mLefts != null && item != null && item.mBoundsDeque == this) {
+                item.mLeft = mLefts[arrayIndex];
+                item.mRight = mRights[arrayIndex];
+                item.mBoundsDeque = null;
+            }
+            return item;
+        }
+
+        private void moveItem(int fromArrayIndex, int toArrayIndex) {
+            ItemInfo item = mItems[fromArrayIndex];
+            mItems[toArrayIndex] = item;
+            if (mLefts == null)
+                return;
+
+            mLefts[toArrayIndex] = mLefts[fromArrayIndex];
+            mRights[toArrayIndex] = mRights[fromArrayIndex];
+            item.mBoundsSlot = toArrayIndex;
+        }
+
+        private static int[] copyToCapacity(int[] values, int head, int size, int newCapacity) {
+            int[] newValues = new int[newCapacity];
+            int headLength = Math.min(size, values.length - head);
+            System.arraycopy(values, head, newValues, 0, headLength);
+            System.arraycopy(values, 0, newValues, headLength, size - headLength);
+            return newValues;
+        }
+
+        private void ensureCapacity(int size) {
+            ItemInfo[] items = mItems;
+            int capacity = items.length;
+            if (size <= capacity)
+                return;
+
+            int newCapacity = capacity;
+            while (newCapacity < size)
+                newCapacity <<= 1;
+            ItemInfo[] newItems = new ItemInfo[newCapacity];
+            int headLength = Math.min(mSize, capacity - mHead);
+            System.arraycopy(items, mHead, newItems, 0, headLength);
+            System.arraycopy(items, 0, newItems, headLength, mSize - headLength);
+            if (mLefts != null) {
+                mLefts = copyToCapacity(mLefts, mHead, mSize, newCapacity);
+                mRights = copyToCapacity(mRights, mHead, mSize, newCapacity);
+                for(int counterItem = 0; counterItem < mSize; counterItem++)
+                    newItems[counterItem].mBoundsSlot = counterItem;
+            }
+            mItems = newItems;
+            mHead = 0;
+        }
+
+        private void checkIndex(int index, int size) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+
+        public int size() {
+            return mSize;
+        }
+
+        public boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        public ItemInfo get(int index) {
+            checkIndex(index, mSize);
+            return mItems[toArrayIndex(index)];
+        }
+
+        public ItemInfo set(int index, ItemInfo item) {
+            checkIndex(index, mSize);
+            int arrayIndex = toArrayIndex(index);
+            ItemInfo oldItem = takeItem(arrayIndex);
+            putItem(arrayIndex, item);
+            return oldItem;
+        }
+
+        public int indexOf(ItemInfo item) {
+            ItemInfo[] items = mItems;
+            int size = mSize;
+            for(int counterItem = 0; counterItem < size; counterItem++)
+                if (items[toArrayIndex(counterItem)] == item)
+                    return counterItem;
+            return -1;
+        }
+
+        public void addFirst(ItemInfo item) {
+            ensureCapacity(mSize + 1);
+            mHead = (mHead - 1) & (mItems.length - 1);
+            putItem(mHead, item);
+            mSize++;
+        }
+
+        public void add(ItemInfo item) {
+            ensureCapacity(mSize + 1);
+            putItem(toArrayIndex(mSize), item);
+            mSize++;
+        }
+
+        public void add(int index, ItemInfo item) {
+            checkIndex(index, mSize + 1);
+            if (index == 0) {
+                addFirst(item);
+                return;
+            }
+
+            ensureCapacity(mSize + 1);
+            int mask = mItems.length - 1;
+            if (index < mSize - index) { // Items before the index are shifted left
+                mHead = (mHead - 1) & mask;
+                for(int counterItem = 0; counterItem < index; counterItem++)
+                    moveItem((mHead + counterItem + 1) & mask, (mHead + counterItem) & mask);
+            } else // Items after the index are shifted right
+                for(int counterItem = mSize; counterItem > index; counterItem--)
+                    moveItem((mHead + counterItem - 1) & mask, (mHead + counterItem) & mask);
+            putItem((mHead + index) & mask, item);
+            mSize++;
+        }
+
+        public ItemInfo removeFirst() {
+            checkIndex(0, mSize);
+            ItemInfo item = takeItem(mHead);
+            mHead = (mHead + 1) & (mItems.length - 1);
+            mSize--;
+            return item;
+        }
+
+        public ItemInfo removeLast() {
+            checkIndex(0, mSize);
+            ItemInfo item = takeItem(toArrayIndex(mSize - 1));
+            mSize--;
+            return item;
+        }
+
+        public ItemInfo remove(int index) {
+            checkIndex(index, mSize);
+            if (index == 0)
+                return removeFirst();
+
+            int mask = mItems.length - 1;
+            ItemInfo item = takeItem((mHead + index) & mask);
+            if (index < mSize - 1 - index) { // Items before the index are shifted right
+                for(int counterItem = index; counterItem > 0; counterItem--)
+                    moveItem((mHead + counterItem - 1) & mask, (mHead + counterItem) & mask);
+                mItems[mHead] = null;
+                mHead = (mHead + 1) & mask;
+            } else { // Items after the index are shifted left
+                for(int counterItem = index; counterItem < mSize - 1; counterItem++)
+                    moveItem((mHead + counterItem + 1) & mask, (mHead + counterItem) & mask);
+                mItems[(mHead + mSize - 1) & mask] = null;
+            }
+            mSize--;
+            return item;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Moves stored coordinates of {@code count} items starting from {@code index} on {@code dX} points. Coordinates
+         * of items out of deque storing them are moved one by one
+         ***************************************************************************************************************
+         */
+        public void offsetBounds(int index, int count, int dX) {
+            int[] lefts = mLefts;
+            if (lefts == null) {
+                for(int counterItem = index; counterItem < index + count; counterItem++) {
+                    ItemInfo item = get(counterItem);
+                    item.setContentBounds(item.getContentLeft() + dX, item.getContentRight() + dX);
+                }
+                return;
+            }
+
+            int[] rights = mRights;
+            int mask = lefts.length - 1;
+            int arrayIndexEnd = mHead + index + count;
+            for(int arrayIndex = mHead + index; arrayIndex < arrayIndexEnd; arrayIndex++) {
+                lefts[arrayIndex & mask] += dX;
+                rights[arrayIndex & mask] += dX;
+            }
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Looks for the last item starting at or before content coordinate. Items are supposed to be sorted by their
+         * left sides
+         * @return item index or -1 if all items start after {@code contentX}
+         ***************************************************************************************************************
+         */
+        public int findLastIndexByLeft(int contentX) {
+            int low = 0;
+            int high = mSize - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int left;
+                if (mLefts == null)
+                    left = get(middle).getContentLeft();
+                else
+                    left = mLefts[toArrayIndex(middle)];
+                if (left <= contentX)
+                    low = middle + 1;
+                else
+                    high = middle - 1;
+            }
+            return high;
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Widths of adapter items measured before. Keys are stable IDs or adapter positions if adapter has no stable IDs.
+     * Widths are kept in open addressing hash table which is cleared when it is filled, so the cache never grows and
+     * lookups do not allocate objects while list is scrolled
+     *******************************************************************************************************************
+     */
+    private static class ItemWidthCache {
+        public static final int WIDTH_UNKNOWN = -1;
+
+        private static final int CAPACITY = 1024; // Power of 2
+        private static final int WIDTHS_MAX_COUNT = CAPACITY * 3 / 4;
+
+        private final long[] mKeys = new long[CAPACITY];
+        private final int[] mWidths = new int[CAPACITY]; // WIDTH_UNKNOWN marks empty slot
+        private int mWidthsCount;
+
+        public ItemWidthCache() {
+            Arrays.fill(mWidths, WIDTH_UNKNOWN);
+        }
+
+        private static int findSlot(long[] keys, int[] widths, long key) {
+            int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            int mask = CAPACITY - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (widths[slot] != WIDTH_UNKNOWN && keys[slot] != key)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        public int get(long key) {
+            return mWidths[findSlot(mKeys, mWidths, key)];
+        }
+
+        public void put(long key, int width) {
+            if (mWidthsCount >= WIDTHS_MAX_COUNT)
+                clear();
+
+            int slot = findSlot(mKeys, mWidths, key);
+            if (mWidths[slot] == WIDTH_UNKNOWN)
+                mWidthsCount++;
+            mKeys[slot] = key;
+            mWidths[slot] = width;
+        }
+
+        public void clear() {
+            if (mWidthsCount == 0)
+                return;
+
+            Arrays.fill(mWidths, WIDTH_UNKNOWN);
+            mWidthsCount = 0;
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Prefix sums of item widths stored in Fenwick tree, so offset of any item and item at any offset are found in
+     * O(log n). Items which have never been measured are counted with average width of measured items. The average of
+     * the last known widths is kept when the index is cleared, so scroll bar does not jump after data change
+     *******************************************************************************************************************
+     */
+    static class ItemWidthIndex {
+        private static final int WIDTH_UNKNOWN = -1;
+
+        private int mItemsCount;
+        private int[] mWidths = new int[0]; // WIDTH_UNKNOWN marks items which have not been measured
+        private long[] mWidthsTree = new long[1]; // Sums of known widths, 1-based
+        private int[] mKnownCountsTree = new int[1]; // Numbers of known widths, 1-based
+        private long mKnownWidthsSum;
+        private int mKnownWidthsCount;
+        private int mEstimatedWidth;
+
+        /**
+         ***************************************************************************************************************
+         * Resizes the index. All widths are forgotten if number of items is changed
+         ***************************************************************************************************************
+         */
+        public void setItemsCount(int itemsCount) {
+            if (itemsCount == mItemsCount)
+                return;
+
+            if (mWidths.length < itemsCount) {
+                mWidths = new int[itemsCount];
+                mWidthsTree = new long[itemsCount + 1];
+                mKnownCountsTree = new int[itemsCount + 1];
+                mItemsCount = 0; // Nothing to clear in new arrays
+            }
+            clear();
+            mItemsCount = itemsCount;
+            Arrays.fill(mWidths, 0, itemsCount, WIDTH_UNKNOWN);
+        }
+
+        public int getItemsCount() {
+            return mItemsCount;
+        }
+
+        public int getEstimatedWidth() {
+            return mEstimatedWidth;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Sets width of items which have not been measured. It is used only until any width is known
+         ***************************************************************************************************************
+         */
+        public void setEstimatedWidth(int width) {
+            if (mKnownWidthsCount == 0)
+                mEstimatedWidth = width;
+        }
+
+        public void clear() {
+            int itemsCount = mItemsCount;
+            if (mKnownWidthsCount == 0)
+                return;
+
+            Arrays.fill(mWidths, 0, itemsCount, WIDTH_UNKNOWN);
+            Arrays.fill(mWidthsTree, 0, itemsCount + 1, 0);
+            Arrays.fill(mKnownCountsTree, 0, itemsCount + 1, 0);
+            mKnownWidthsSum = 0;
+            mKnownWidthsCount = 0;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Inserts items with unknown widths at {@code position}. Widths of following items are shifted
+         ***************************************************************************************************************
+         */
+        public void insertItems(int position, int count) {
+            int itemsCount = mItemsCount;
+            position = Math.min(position, itemsCount);
+            int newItemsCount = itemsCount + count;
+            if (mWidths.length < newItemsCount) {
+                int[] newWidths = new int[newItemsCount];
+                System.arraycopy(mWidths, 0, newWidths, 0, itemsCount);
+                mWidths = newWidths;
+                mWidthsTree = new long[newItemsCount + 1];
+                mKnownCountsTree = new int[newItemsCount + 1];
+            }
+
+            int[] widths = mWidths;
+            System.arraycopy(widths, position, widths, position + count, itemsCount - position);
+            Arrays.fill(widths, position, position + count, WIDTH_UNKNOWN);
+            mItemsCount = newItemsCount;
+            rebuildTrees();
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Removes {@code count} items starting from {@code position}. Widths of following items are shifted
+         ***************************************************************************************************************
+         */
+        public void removeItems(int position, int count) {
+            int itemsCount = mItemsCount;
+            count = Math.min(count, itemsCount - position);
+            if (count <= 0)
+                return;
+
+            int[] widths = mWidths;
+            for(int counterItem = position; counterItem < position + count; counterItem++)
+                if (widths[counterItem] != WIDTH_UNKNOWN) {
+                    mKnownWidthsSum -= widths[counterItem];
+                    mKnownWidthsCount--;
+                }
+            System.arraycopy(widths, position + count, widths, position, itemsCount - position - count);
+            mItemsCount = itemsCount - count;
+            if (mKnownWidthsCount != 0)
+                mEstimatedWidth = (int) (mKnownWidthsSum / mKnownWidthsCount);
+            rebuildTrees();
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Builds trees from widths in linear time. Every node passes its sum to the parent node
+         ***************************************************************************************************************
+         */
+        private void rebuildTrees() {
+            int itemsCount = mItemsCount;
+            int[] widths = mWidths;
+            long[] widthsTree = mWidthsTree;
+            int[] knownCountsTree = mKnownCountsTree;
+            Arrays.fill(widthsTree, 0, itemsCount + 1, 0);
+            Arrays.fill(knownCountsTree, 0, itemsCount + 1, 0);
+            for(int counterNode = 1; counterNode <= itemsCount; counterNode++) {
+                int width = widths[counterNode - 1];
+                if (width != WIDTH_UNKNOWN) {
+                    widthsTree[counterNode] += width;
+                    knownCountsTree[counterNode]++;
+                }
+
+                int parentNode = counterNode + (counterNode & -counterNode);
+                if (parentNode <= itemsCount) {
+                    widthsTree[parentNode] += widthsTree[counterNode];
+                    knownCountsTree[parentNode] += knownCountsTree[counterNode];
+                }
+            }
+        }
+
+        public void setWidth(int position, int width) {
+            int itemsCount = mItemsCount;
+            if (position >= itemsCount)
+                return;
+
+            int oldWidth = mWidths[position];
+            if (oldWidth == width)
+                return;
+
+            mWidths[position] = width;
+            int widthDelta;
+            int knownCountDelta;
+            if (oldWidth == WIDTH_UNKNOWN) {
+                widthDelta = width;
+                knownCountDelta = 1;
+            } else {
+                widthDelta = width - oldWidth;
+                knownCountDelta = 0;
+            }
+
+            long[] widthsTree = mWidthsTree;
+            int[] knownCountsTree = mKnownCountsTree;
+            for(int counterNode = position + 1; counterNode <= itemsCount; counterNode += counterNode & -counterNode) {
+                widthsTree[counterNode] += widthDelta;
+                knownCountsTree[counterNode] += knownCountDelta;
+            }
+            mKnownWidthsSum += widthDelta;
+            mKnownWidthsCount += knownCountDelta;
+            mEstimatedWidth = (int) (mKnownWidthsSum / mKnownWidthsCount);
+        }
+
+        /**
+         ***************************************************************************************************************
+         * @return sum of widths of items preceding {@code position}
+         ***************************************************************************************************************
+         */
+        public long getOffset(int position) {
+            long widthsSum = 0;
+            int knownCount = 0;
+            long[] widthsTree = mWidthsTree;
+            int[] knownCountsTree = mKnownCountsTree;
+            int counterNode = Math.min(position, mItemsCount);
+            while (counterNode > 0) {
+                widthsSum += widthsTree[counterNode];
+                knownCount += knownCountsTree[counterNode];
+                counterNode -= counterNode & -counterNode;
+            }
+            return widthsSum + (long) (position - knownCount) * mEstimatedWidth;
+        }
+
+        public long getTotalWidth() {
+            return mKnownWidthsSum + (long) (mItemsCount - mKnownWidthsCount) * mEstimatedWidth;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Descends Fenwick tree to the last item whose offset does not exceed {@code offset}
+         * @return position of the item or -1 if the index is empty
+         ***************************************************************************************************************
+         */
+        public int findPosition(long offset) {
+            int itemsCount = mItemsCount;
+            if (itemsCount == 0)
+                return -1;
+
+            long[] widthsTree = mWidthsTree;
+            int[] knownCountsTree = mKnownCountsTree;
+            int estimatedWidth = mEstimatedWidth;
+            int position = 0;
+            long remainingOffset = offset;
+            for(int step = Integer.highestOneBit(itemsCount); step > 0; step >>= 1) {
+                int node = position + step;
+                if (node > itemsCount)
+                    continue;
+
+                // Node covers exactly step items because position has no bits lower than step
+                long nodeWidth = widthsTree[node] + (long) (step - knownCountsTree[node]) * estimatedWidth;
+                if (nodeWidth <= remainingOffset) {
+                    position = node;
+                    remainingOffset -= nodeWidth;
+                }
+            }
+            return Math.min(position, itemsCount - 1);
+        }
+    }
+
     protected static abstract class ItemInfoManager<A extends Adapter> {
+        private static final int ITEM_INFO_COUNT_UNKNOWN = -1;
+
         private final A mAdapter;
         private final ViewCache mViewCache;
-        private final ArrayList<ItemInfo> mItemsCache;
+        private final ItemInfoDeque mItemsCache;
+        // VersionedAdapter is asked for number of items only after data change, so scrolling does not ask it for every
+        // frame
+        private int mItemInfoCount = ITEM_INFO_COUNT_UNKNOWN;
+        private long mItemInfoCountVersion;
 
         protected ItemInfoManager(A adapter) {
             int viewTypesCount;
@@ -975,7 +2211,7 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
                 viewTypesCount = adapter.getViewTypeCount();
             mAdapter = adapter;
             mViewCache = new ViewCache(viewTypesCount);
-            mItemsCache = new ArrayList<ItemInfo>();
+            mItemsCache = new ItemInfoDeque();
         }
 
         public A getAdapter() {
@@ -988,22 +2224,55 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
             A adapter = mAdapter;
             if (adapter == null)
                 return 0;
-            else
+            if (!(adapter instanceof VersionedAdapter)) // Data change of other adapters may be not seen by the view
                 return onGetItemInfoCount(adapter);
+
+            long dataVersion = ((VersionedAdapter) adapter).getDataVersion();
+            if (dataVersion != mItemInfoCountVersion) {
+                mItemInfoCountVersion = dataVersion;
+                mItemInfoCount = ITEM_INFO_COUNT_UNKNOWN;
+            }
+            if (mItemInfoCount == ITEM_INFO_COUNT_UNKNOWN)
+                mItemInfoCount = onGetItemInfoCount(adapter);
+            return mItemInfoCount;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Discards cached number of items of {@link VersionedAdapter}. It is called whenever adapter data is changed
+         ***************************************************************************************************************
+         */
+        public void invalidateItemInfoCount() {
+            mItemInfoCount = ITEM_INFO_COUNT_UNKNOWN;
         }
 
         protected abstract ItemInfo onCreateItemInfo();
 
-        public ItemInfo createItemInfo(HorizontalAbsListView view, int globalIndex) {
-            ArrayList<ItemInfo> cache = mItemsCache;
+        /**
+         ***************************************************************************************************************
+         * Binds item views to adapter item without adding them to list view
+         ***************************************************************************************************************
+         */
+        public ItemInfo bindItemInfo(HorizontalAbsListView view, int globalIndex) {
+            ItemInfoDeque cache = mItemsCache;
             ItemInfo itemInfo;
             if (cache.size() == 0)
                 itemInfo = onCreateItemInfo();
             else
-                itemInfo = cache.remove(0);
+                itemInfo = cache.removeLast(); // Recently recycled item is taken first
 
+            itemInfo.setListView(view);
             itemInfo.createItemViews(view, globalIndex, mAdapter, mViewCache);
+            return itemInfo;
+        }
+
+        public void attachItemInfo(HorizontalAbsListView view, ItemInfo itemInfo) {
             itemInfo.addItemViews(view);
+        }
+
+        public ItemInfo createItemInfo(HorizontalAbsListView view, int globalIndex) {
+            ItemInfo itemInfo = bindItemInfo(view, globalIndex);
+            attachItemInfo(view, itemInfo);
             return itemInfo;
         }
 
@@ -1028,5 +2297,31 @@ public abstract class HorizontalAbsListView<A extends Adapter> extends AdapterVi
         }
     }
 
+    private static class PrefetchItemsRunnable implements Runnable {
+        private final HorizontalAbsListView mView;
+
+        private PrefetchItemsRunnable(HorizontalAbsListView view) {
+            mView = view;
+        }
+
+        @Override
+        public void run() {
+            mView.prefetchItems();
+        }
+    }
+
+    private static class RelayoutChildrenRunnable implements Runnable {
+        private final HorizontalAbsListView mView;
+
+        private RelayoutChildrenRunnable(HorizontalAbsListView view) {
+            mView = view;
+        }
+
+        @Override
+        public void run() {
+            mView.relayoutItems();
+        }
+    }
+
 
 }
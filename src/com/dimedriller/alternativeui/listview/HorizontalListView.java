@@ -3,19 +3,26 @@ package com.dimedriller.alternativeui.listview;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.database.DataSetObserver;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.widget.Adapter;
 import com.dimedriller.alternativeui.R;
-import com.dimedriller.alternativeui.listview.diff.DeleteDiffAtom;
 import com.dimedriller.alternativeui.listview.diff.DiffAnalyser;
-import com.dimedriller.alternativeui.listview.diff.DiffAtom;
-import com.dimedriller.alternativeui.listview.diff.InsertDiffAtom;
+import com.dimedriller.alternativeui.listview.diff.DiffStrategy;
+import com.dimedriller.alternativeui.listview.diff.ItemContentComparator;
+import com.dimedriller.alternativeui.listview.diff.ItemSource;
 import com.dimedriller.alternativeui.log.Log;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  ***********************************************************************************************************************
@@ -25,16 +32,43 @@ import java.util.ArrayList;
 public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView<A> {
     private static final int DEFAULT_EXPAND_COLLAPSE_DURATION = 300;
     private static final int DEFAULT_EXPAND_COLLAPSE_DELAY = 0;
+    private static final DiffStrategy DEFAULT_DIFF_STRATEGY = DiffStrategy.ANCHOR;
+    private static final int PARALLEL_DIFF_API_LEVEL = 21; // ForkJoinPool is available since Lollipop
+    private static final int DEFAULT_DIFF_COST_LIMIT = DiffAnalyser.NO_COST_LIMIT;
+    private static final int DIFF_WINDOW_RATIO = 2; // Initial diff window radius in displayed items count
+    private static final int SUBMITTED_LIST_DIFF_ATTEMPTS = 2; // Searches of submitted list difference before the list
+                                                               // is committed without animation
+
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "HorizontalListView diff");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
 
     private final DataSetObserver mDataSetObserver = new DataSetObserver() {
         @Override
         public void onChanged() {
-            onAdapterDataChanged();
+            if (isDisplayedDataVersionActual()) { // Measured widths and prefetched items are still valid
+                Log.dh(HorizontalListView.this, "Data version is not changed");
+                return;
+            }
+
+            getItemsManager().invalidateItemInfoCount();
+            invalidateItemWidths();
+            if (!mIsSubmittedListCommitting)
+                onAdapterDataChanged();
         }
 
         @Override
         public void onInvalidated() {
             // TODO: Implement smooth version of invalidating
+            getItemsManager().invalidateItemInfoCount();
+            invalidateItemWidths();
+            mIsDisplayedDataVersionKnown = false;
             requestLayout();
         }
     };
@@ -42,10 +76,21 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
     private Animation mRemoveViewAnimation;
     private int mExpandCollapseDelay;
     private int mExpandCollapseDuration;
+    private DiffStrategy mDiffStrategy;
+    private int mDiffCostLimit;
+    private DiffAnalyser mDiffAnalyser; // Analysers are reused to avoid allocation of their indices for every diff
+    private DiffAnalyser mListDiffAnalyser; // Analyser used on background thread for submitted lists
+    private ItemContentComparator mItemContentComparator;
 
     private InsertDeleteAction mInsertDeleteAction;
-    private Runnable mPostponedDataChangedUpdate;
-    private Runnable mPostponedLayoutUpdate;
+
+    private int mSubmittedListGeneration;
+    private Future<?> mSubmittedListDiff;
+    private boolean mIsSubmittedListCommitting;
+    private boolean mIsDisplayedDataVersionKnown;
+    private long mDisplayedDataVersion; // Version of VersionedAdapter data which displayed items are bound to
+
+    private final int[] mKnownChangeRuns = new int[2 * DiffAnalyser.RUN_SIZE]; // Changes reported by notifyItem...()
 
     @SuppressWarnings("UnusedDeclaration")
     public HorizontalListView(Context context, AttributeSet attrs, int defStyle) {
@@ -81,12 +126,79 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
                 DEFAULT_EXPAND_COLLAPSE_DELAY);
         mExpandCollapseDuration = rawParams.getInteger(R.styleable.HorizontalListView_expandCollapseDuration,
                 DEFAULT_EXPAND_COLLAPSE_DURATION);
+        mDiffStrategy = resolveDiffStrategy(DiffStrategy.values()[rawParams.getInt(
+                R.styleable.HorizontalListView_diffStrategy,
+                DEFAULT_DIFF_STRATEGY.ordinal())]);
+        mDiffCostLimit = rawParams.getInteger(R.styleable.HorizontalListView_diffCostLimit, DEFAULT_DIFF_COST_LIMIT);
+        setTranslationScrollEnabled(rawParams.getBoolean(R.styleable.HorizontalListView_translationScroll, false));
+        setFixedItemWidth(rawParams.getDimensionPixelSize(R.styleable.HorizontalListView_fixedItemWidth,
+                ITEM_WIDTH_NOT_FIXED));
+        setPrefetchItemsCount(rawParams.getInteger(R.styleable.HorizontalListView_prefetchItemsCount, 0));
         rawParams.recycle();
     }
 
     private void initViewParameters() {
         mExpandCollapseDelay = DEFAULT_EXPAND_COLLAPSE_DELAY;
         mExpandCollapseDuration = DEFAULT_EXPAND_COLLAPSE_DURATION;
+        mDiffStrategy = DEFAULT_DIFF_STRATEGY;
+        mDiffCostLimit = DEFAULT_DIFF_COST_LIMIT;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return strategy which can be used on the device. {@link DiffStrategy#PARALLEL} is replaced by
+     * {@link DiffStrategy#MYERS} below API level 21
+     *******************************************************************************************************************
+     */
+    private static DiffStrategy resolveDiffStrategy(DiffStrategy diffStrategy) {
+        if (diffStrategy == DiffStrategy.PARALLEL && Build.VERSION.SDK_INT < PARALLEL_DIFF_API_LEVEL)
+            return DiffStrategy.MYERS;
+        return diffStrategy;
+    }
+
+    public DiffStrategy getDiffStrategy() {
+        return mDiffStrategy;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Sets algorithm used to search for differences between displayed items and adapter items when adapter data is
+     * changed. {@link DiffStrategy#PARALLEL} requires API level 21 and is replaced by {@link DiffStrategy#MYERS} on
+     * older devices
+     *******************************************************************************************************************
+     */
+    public void setDiffStrategy(DiffStrategy diffStrategy) {
+        mDiffStrategy = resolveDiffStrategy(diffStrategy);
+        mDiffAnalyser = null;
+        mListDiffAnalyser = null;
+    }
+
+    public int getDiffCostLimit() {
+        return mDiffCostLimit;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Sets maximum number of insertions and deletions which are animated when adapter data is changed. If displayed
+     * items need more changes they are rebound to adapter items at once without animation
+     *******************************************************************************************************************
+     */
+    public void setDiffCostLimit(int diffCostLimit) {
+        mDiffCostLimit = diffCostLimit;
+    }
+
+    public ItemContentComparator getItemContentComparator() {
+        return mItemContentComparator;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Sets comparator which detects displayed items changed in place. Views of such items are rebound to new adapter
+     * items instead of being deleted and inserted again. If comparator is {@code null} item content is not compared
+     *******************************************************************************************************************
+     */
+    public void setItemContentComparator(ItemContentComparator itemContentComparator) {
+        mItemContentComparator = itemContentComparator;
     }
 
     @Override
@@ -108,16 +220,8 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
             removeCallbacks(mInsertDeleteAction);
             mInsertDeleteAction = null;
         }
-        if (mPostponedDataChangedUpdate != null) {
-            Log.dh(this, "mPostponedDataChangedUpdate != null");
-            removeCallbacks(mPostponedDataChangedUpdate);
-            mInsertDeleteAction = null;
-        }
-        if (mPostponedLayoutUpdate != null) {
-            Log.dh(this, "mPostponedLayoutUpdate != null");
-            removeCallbacks(mPostponedLayoutUpdate);
-            mPostponedLayoutUpdate = null;
-        }
+        cancelSubmittedList();
+        mIsDisplayedDataVersionKnown = false;
 
         A oldAdapter = getAdapter();
         if (oldAdapter != null)
@@ -167,18 +271,56 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
             insertDeleteAction.cleanUpSteps();
     }
 
+    @Override
+    public void setSelection(int position, int offset) {
+        finishListUpdate();
+        super.setSelection(position, offset);
+    }
+
     @Override
     protected void onLayout(boolean isChanged, int l, int t, int r, int b) {
-        if (mInsertDeleteAction == null) {
+        InsertDeleteAction insertDeleteAction = mInsertDeleteAction;
+        if (insertDeleteAction != null && mItems.size() == 0) { // All animated items are scrolled out
+            removeCallbacks(insertDeleteAction);
+            mInsertDeleteAction = null;
+            insertDeleteAction = null;
+        }
+
+        if (insertDeleteAction == null) {
             Log.dh(this, isChanged, l, t, r, b);
             super.onLayout(isChanged, l, t, r, b);
         } else {
-            Log.dh(this, "Postponed");
-            if (mPostponedLayoutUpdate != null)
-                removeCallbacks(mPostponedLayoutUpdate);
-            mPostponedLayoutUpdate = new PostponedLayoutUpdate(isChanged, l, t, r, b);
-            postDelayed(mPostponedLayoutUpdate, mInsertDeleteAction.getRemainingTime());
+            Log.dh(this, "Animated", isChanged, l, t, r, b);
+            layoutAnimatedItems(insertDeleteAction);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Measures displayed items again while update is animated. Animated items keep their current widths and their
+     * steps continue from the current widths to the measured ones within remaining time of the update
+     *******************************************************************************************************************
+     */
+    private void layoutAnimatedItems(InsertDeleteAction insertDeleteAction) {
+        ItemInfoDeque items = mItems;
+        int itemsCount = items.size();
+        int paddingLeft = getPaddingLeft();
+        int paddingTop = getPaddingTop();
+        int layoutLeft = getFirstItemOffset();
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            ListItemInfo item = (ListItemInfo) items.get(counterItem);
+            int displayedWidth = item.getRight() - item.getLeft();
+            if (isItemMeasureRequired(item))
+                measureItemViews(item);
+            if (item.getUpdateStep() == null)
+                displayedWidth = item.getWidth();
+            item.layoutViews(layoutLeft, paddingLeft, paddingTop, displayedWidth);
+            layoutLeft += displayedWidth;
         }
+
+        insertDeleteAction.restart();
+        addItemsRight(0);
+        removeItemsRight(0);
     }
 
     @Override
@@ -186,67 +328,261 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
         return mInsertDeleteAction == null;
     }
 
-    private Object[] getVisibleItemsList() {
-        ArrayList<ItemInfo> items = mItems;
+    @Override
+    protected boolean isLocalRelayoutAvailable() {
+        return mInsertDeleteAction == null; // Animated items are laid out by layoutAnimatedItems()
+    }
+
+    @Override
+    protected boolean isPrefetchAvailable() {
+        return mInsertDeleteAction == null; // Collapsing items shift global indices of displayed items
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return {@code true} if item is collapsed by running update. Such item is already absent in adapter, so it is not
+     * compared with adapter items and list positions of changes skip it
+     *******************************************************************************************************************
+     */
+    private static boolean isItemCollapsing(ItemInfo item) {
+        return ((ListItemInfo) item).getUpdateStep() instanceof DeleteStep;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return number of displayed items which are not collapsing
+     *******************************************************************************************************************
+     */
+    private int getActualItemsCount() {
+        ItemInfoDeque items = mItems;
         int itemsCount = items.size();
-        Object[] visibleItems = new Object[itemsCount];
+        if (mInsertDeleteAction == null)
+            return itemsCount;
+
+        int actualItemsCount = 0;
         for(int counterItem = 0; counterItem < itemsCount; counterItem++)
-            visibleItems[counterItem] = ((ListItemInfo)items.get(counterItem)).getItem();
+            if (!isItemCollapsing(items.get(counterItem)))
+                actualItemsCount++;
+        return actualItemsCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Converts list position of change to index in {@code mItems}. Items collapsing when the change is started are
+     * skipped
+     * @return index of item at {@code listPosition} or number of items if the position is after the last item
+     *******************************************************************************************************************
+     */
+    private int findItemIndex(int listPosition) {
+        ItemInfoDeque items = mItems;
+        int itemsCount = items.size();
+        if (mInsertDeleteAction == null)
+            return Math.min(listPosition, itemsCount);
+
+        int counterPosition = 0;
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            if (isItemCollapsing(items.get(counterItem)))
+                continue;
+            if (counterPosition == listPosition)
+                return counterItem;
+            counterPosition++;
+        }
+        return itemsCount;
+    }
+
+    private Object[] getVisibleItemsList() {
+        ItemInfoDeque items = mItems;
+        int itemsCount = items.size();
+        Object[] visibleItems = new Object[getActualItemsCount()];
+        int visibleItemsCount = 0;
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            ItemInfo item = items.get(counterItem);
+            if (isItemCollapsing(item))
+                continue;
+            visibleItems[visibleItemsCount] = ((ListItemInfo) item).getItem();
+            visibleItemsCount++;
+        }
         return visibleItems;
     }
 
+    private long[] getVisibleItemIDsList() {
+        ItemInfoDeque items = mItems;
+        int itemsCount = items.size();
+        long[] visibleItemIDs = new long[getActualItemsCount()];
+        int visibleItemsCount = 0;
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            ItemInfo item = items.get(counterItem);
+            if (isItemCollapsing(item))
+                continue;
+            visibleItemIDs[visibleItemsCount] = ((ListItemInfo) item).getItemID();
+            visibleItemsCount++;
+        }
+        return visibleItemIDs;
+    }
+
     /**
      *******************************************************************************************************************
-     * Starts insertion and deletion animations
+     * Removes step animating {@code item} from running update. It is done when the item gets new step
      *******************************************************************************************************************
      */
-    private void startListUpdate(int adapterOffset, DiffAtom[] changes) {
-        for(DiffAtom change : changes)
-            Log.dh(this, change);
+    private void cancelItemUpdateStep(ListItemInfo item) {
+        UpdateStep updateStep = item.getUpdateStep();
+        if (updateStep == null)
+            return;
 
+        mInsertDeleteAction.removeStep(updateStep);
+        item.setUpdateStep(null);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Inserts item view at {@code listPosition} and starts its expanding
+     * @return width of inserted item
+     *******************************************************************************************************************
+     */
+    private int insertListItem(int listPosition, int adapterPosition, ArrayList<UpdateStep> updateSteps) {
+        ItemInfoDeque items = mItems;
+        ListItemInfo itemInfo = (ListItemInfo) getItemsManager().createItemInfo(this, adapterPosition);
+        measureItemViews(itemInfo);
+
+        int itemsCount = items.size();
+        int itemIndex = findItemIndex(listPosition);
+        int layoutLeft;
+        if (itemsCount <= itemIndex) {
+            layoutLeft = items.get(itemsCount - 1).getRight();
+            items.add(itemInfo);
+        } else {
+            layoutLeft = items.get(itemIndex).getLeft();
+            items.add(itemIndex, itemInfo);
+        }
+        itemInfo.layoutViews(layoutLeft, getPaddingLeft(), getPaddingTop(), 0);
+
+        itemInfo.startAnimation(mAddViewAnimation);
+        updateSteps.add(new InsertStep(itemInfo));
+        return itemInfo.getWidth();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Moves item view from {@code listPosition} to {@code newListPosition}. The old position is collapsed as deleted
+     * item
+     *******************************************************************************************************************
+     */
+    private void moveListItem(int listPosition, int newListPosition, ArrayList<UpdateStep> updateSteps) {
+        ItemInfoDeque items = mItems;
+        int itemIndex = findItemIndex(listPosition);
+        ListItemInfo itemInfo = (ListItemInfo) items.get(itemIndex);
+        GapItemInfo gapInfo = new GapItemInfo(itemInfo); // The gap replaces item at its old position and
+        items.set(itemIndex, gapInfo);                    // collapses as deleted item
+        cancelItemUpdateStep(itemInfo);
+
+        int itemsCount = items.size();
+        int newItemIndex = findItemIndex(newListPosition);
+        int layoutLeft;
+        if (itemsCount <= newItemIndex) {
+            layoutLeft = items.get(itemsCount - 1).getRight();
+            items.add(itemInfo);
+        } else {
+            layoutLeft = items.get(newItemIndex).getLeft();
+            items.add(newItemIndex, itemInfo);
+        }
+        itemInfo.layoutSlidingViews(layoutLeft, gapInfo.getLeft(), getPaddingLeft(), getPaddingTop(), 0);
+
+        updateSteps.add(new DeleteStep(gapInfo));
+        updateSteps.add(new MoveStep(itemInfo, gapInfo));
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Rebinds item view at {@code listPosition} to changed adapter item
+     * @return change of item width
+     *******************************************************************************************************************
+     */
+    private int changeListItem(int listPosition, int adapterPosition, ArrayList<UpdateStep> updateSteps) {
+        ListItemInfo itemInfo = (ListItemInfo) mItems.get(findItemIndex(listPosition));
+        int oldWidth = itemInfo.getWidth();
+        if (itemInfo.rebindItemViews(this, adapterPosition, getAdapter()))
+            measureItemViews(itemInfo);
+
+        int newWidth = itemInfo.getWidth();
+        if (itemInfo.getUpdateStep() != null) // Running step of the item is retargeted to the new width
+            itemInfo.layoutViews(itemInfo.getLeft(),
+                    getPaddingLeft(),
+                    getPaddingTop(),
+                    itemInfo.getRight() - itemInfo.getLeft());
+        else if (newWidth == oldWidth)
+            itemInfo.layoutViews(itemInfo.getLeft(), getPaddingLeft(), getPaddingTop());
+        else {
+            itemInfo.layoutViews(itemInfo.getLeft(), getPaddingLeft(), getPaddingTop(), oldWidth);
+            updateSteps.add(new ChangeStep(itemInfo));
+        }
+        return newWidth - oldWidth;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Starts collapsing of item view at {@code listPosition}
+     * @return width of deleted item
+     *******************************************************************************************************************
+     */
+    private int deleteListItem(int listPosition, ArrayList<UpdateStep> updateSteps) {
+        ListItemInfo itemInfo = (ListItemInfo) mItems.get(findItemIndex(listPosition));
+        cancelItemUpdateStep(itemInfo);
+        itemInfo.startAnimation(mRemoveViewAnimation);
+        updateSteps.add(new DeleteStep(itemInfo));
+        return itemInfo.getWidth();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Starts insertion and deletion animations. If update is already animated its steps are retargeted from current
+     * widths of items and new steps are merged to it
+     * @param changeRuns - runs of changes encoded as described in {@link DiffAnalyser}. List positions do not include
+     * items collapsing by running update
+     *******************************************************************************************************************
+     */
+    private void startListUpdate(int adapterOffset, int[] changeRuns, int changeRunsCount) {
         ItemInfoManager itemsManager = getItemsManager();
-        ArrayList<ItemInfo> items = mItems;
+        ItemInfoDeque items = mItems;
 
         ArrayList<UpdateStep> updateSteps = new ArrayList<UpdateStep>();
         int itemsFullWidth = getDisplayedItemsFullWidth();
         int itemsOldFullWidth = itemsFullWidth;
-        int itemsToDeleteCount = 0;
+        int itemsToDeleteCount = items.size() - getActualItemsCount();
         int paddingLeft = getPaddingLeft();
         int paddingTop = getPaddingTop();
 
-        for(DiffAtom diff : changes)
-            if (diff instanceof InsertDiffAtom) {
-                InsertDiffAtom insertDiff = (InsertDiffAtom) diff;
-                ListItemInfo itemInfo = (ListItemInfo) itemsManager.createItemInfo(this, insertDiff.getAdapterPosition());
-                itemInfo.measureViews(getWidthWithoutPaddings(), getHeightWithoutPaddings());
-
-                itemsFullWidth += itemInfo.getWidth();
-
-                int insertIndex = insertDiff.getListPosition();
-                int itemsCount = items.size();
-                int layoutLeft;
-                if (itemsCount <= insertIndex) {
-                    layoutLeft = items.get(itemsCount - 1).getRight();
-                    items.add(itemInfo);
-                } else {
-                    layoutLeft = items.get(insertIndex).getLeft();
-                    items.add(insertIndex, itemInfo);
-                }
-                itemInfo.layoutViews(layoutLeft, paddingLeft, paddingTop, 0);
-
-                itemInfo.startAnimation(mAddViewAnimation);
-                updateSteps.add(new InsertStep(itemInfo));
-
-            } else {
-                int deleteIndex = ((DeleteDiffAtom) diff).getListPosition();
-                ListItemInfo itemInfo = (ListItemInfo) items.get(deleteIndex);
-                itemInfo.startAnimation(mRemoveViewAnimation);
-
-                itemsToDeleteCount++;
-                itemsFullWidth -= itemInfo.getWidth();
-
-                updateSteps.add(new DeleteStep(itemInfo));
+        for(int counterRun = 0; counterRun < changeRunsCount; counterRun++) {
+            int runOffset = counterRun * DiffAnalyser.RUN_SIZE;
+            int operation = changeRuns[runOffset + DiffAnalyser.RUN_OPERATION];
+            int listPosition = changeRuns[runOffset + DiffAnalyser.RUN_LIST_POSITION];
+            int adapterPosition = changeRuns[runOffset + DiffAnalyser.RUN_ADAPTER_POSITION];
+            int length = changeRuns[runOffset + DiffAnalyser.RUN_LENGTH];
+            Log.dh(this, operation, listPosition, adapterPosition, length);
+
+            switch (operation) {
+                case DiffAnalyser.OPERATION_INSERT:
+                    for(int counterItem = 0; counterItem < length; counterItem++)
+                        itemsFullWidth += insertListItem(listPosition + counterItem,
+                                adapterPosition + counterItem,
+                                updateSteps);
+                    break;
+                case DiffAnalyser.OPERATION_MOVE:
+                    moveListItem(listPosition, changeRuns[runOffset + DiffAnalyser.RUN_NEW_LIST_POSITION], updateSteps);
+                    itemsToDeleteCount++;
+                    break;
+                case DiffAnalyser.OPERATION_CHANGE:
+                    for(int counterItem = 0; counterItem < length; counterItem++)
+                        itemsFullWidth += changeListItem(listPosition + counterItem,
+                                adapterPosition + counterItem,
+                                updateSteps);
+                    break;
+                default:
+                    for(int counterItem = 0; counterItem < length; counterItem++)
+                        itemsFullWidth -= deleteListItem(listPosition + counterItem, updateSteps);
+                    itemsToDeleteCount += length;
             }
+        }
 
         int viewWidth = getWidthWithoutPaddings();
         int adapterItemsCount = getItemsManager().getItemInfoCount();
@@ -260,7 +596,7 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
               && viewWidth > itemsFullWidth
               && adapterIndex < adapterItemsCount) {
             ListItemInfo insertedItem = (ListItemInfo) itemsManager.createItemInfo(this, adapterIndex);
-            insertedItem.measureViews(getWidthWithoutPaddings(), getHeightWithoutPaddings());
+            measureItemViews(insertedItem);
 
             itemsFullWidth += insertedItem.getWidth();
             items.add(insertedItem);
@@ -277,40 +613,445 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
             return;
 
         mFirstGlobalItemIndex = adapterOffset;
-        mInsertDeleteAction = new InsertDeleteAction(updateSteps, mExpandCollapseDuration);
-        postDelayed(mInsertDeleteAction, mExpandCollapseDelay);
+        if (updateSteps.isEmpty()) // Items are only rebound in place, so there is nothing to animate
+            return;
+
+        InsertDeleteAction insertDeleteAction = mInsertDeleteAction;
+        if (insertDeleteAction == null) {
+            mInsertDeleteAction = new InsertDeleteAction(updateSteps, mExpandCollapseDuration);
+            postDelayed(mInsertDeleteAction, mExpandCollapseDelay);
+        } else // Running update is already posted, so changes are seen at the next frame
+            insertDeleteAction.addSteps(updateSteps);
     }
 
-    private boolean checkIfCanStartUpdate() {
-        if (mInsertDeleteAction == null) // If there is no current updating action than new one can be started
-            return true;
+    /**
+     *******************************************************************************************************************
+     * Completes running update immediately. It is done before displayed items are rebound
+     *******************************************************************************************************************
+     */
+    private void finishListUpdate() {
+        InsertDeleteAction insertDeleteAction = mInsertDeleteAction;
+        if (insertDeleteAction == null)
+            return;
 
-        if (mPostponedDataChangedUpdate != null) // If an update already scheduled ignore another one
+        removeCallbacks(insertDeleteAction);
+        mInsertDeleteAction = null;
+        insertDeleteAction.finishSteps();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Remembers version of adapter data which displayed items are bound to
+     *******************************************************************************************************************
+     */
+    private void updateDisplayedDataVersion() {
+        Adapter adapter = getAdapter();
+        mIsDisplayedDataVersionKnown = adapter instanceof VersionedAdapter;
+        if (mIsDisplayedDataVersionKnown)
+            mDisplayedDataVersion = ((VersionedAdapter) adapter).getDataVersion();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return {@code true} if adapter reports the same data version which displayed items are bound to, so data set
+     * change notification is redundant
+     *******************************************************************************************************************
+     */
+    private boolean isDisplayedDataVersionActual() {
+        Adapter adapter = getAdapter();
+        return mIsDisplayedDataVersionKnown
+                && adapter instanceof VersionedAdapter
+                && ((VersionedAdapter) adapter).getDataVersion() == mDisplayedDataVersion;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return {@code true} if displayed items are equal to adapter items at the same positions, so data set change does
+     * not affect them and search of the difference can be skipped
+     *******************************************************************************************************************
+     */
+    private boolean isDisplayedSnapshotActual() {
+        ItemInfoDeque items = mItems;
+        int itemsCount = items.size();
+        if (itemsCount == 0 || mInsertDeleteAction != null)
             return false;
 
-        mPostponedDataChangedUpdate = new PostponedDataChangedUpdate(); // Start new update when current one is
-        postDelayed(mPostponedDataChangedUpdate, mInsertDeleteAction.getRemainingTime()); // finished
-        return false;
+        Adapter adapter = getAdapter();
+        int firstItemIndex = mFirstGlobalItemIndex;
+        if (firstItemIndex + itemsCount > adapter.getCount())
+            return false;
+
+        boolean hasStableIds = adapter.hasStableIds();
+        ItemContentComparator contentComparator = mItemContentComparator;
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            ListItemInfo item = (ListItemInfo) items.get(counterItem);
+            int adapterIndex = firstItemIndex + counterItem;
+            if (hasStableIds) {
+                if (item.getItemID() != adapter.getItemId(adapterIndex))
+                    return false;
+                if (contentComparator == null)
+                    continue;
+            }
+
+            Object displayedItem = item.getItem();
+            Object adapterItem = adapter.getItem(adapterIndex);
+            if (!hasStableIds && !(displayedItem == null ? adapterItem == null : displayedItem.equals(adapterItem)))
+                return false;
+            if (contentComparator != null && !contentComparator.areContentsTheSame(displayedItem, adapterItem))
+                return false;
+        }
+        return true;
     }
 
     private void onAdapterDataChanged() {
-        if (!checkIfCanStartUpdate())
+        Adapter adapter = getAdapter();
+        updateDisplayedDataVersion();
+        if (isDisplayedSnapshotActual()) {
+            Log.dh(this, "Displayed items are not changed");
+            if (getDisplayedItemsFullWidth() < getWidthWithoutPaddings())
+                requestLayout(); // Items added after displayed ones are laid out
             return;
+        }
 
-        Object[] visibleItems = getVisibleItemsList();
-        final DiffAnalyser diffAnalyser = new DiffAnalyser(visibleItems);
+        if (mDiffAnalyser == null)
+            mDiffAnalyser = mDiffStrategy.createAnalyser();
+        DiffAnalyser diffAnalyser = mDiffAnalyser;
+        if (adapter.hasStableIds()) // Stable IDs are compared instead of items to avoid creation of items and
+            diffAnalyser.setBaseList(getVisibleItemIDsList()); // calls of equals()
+        else
+            diffAnalyser.setBaseList(getVisibleItemsList());
+        if (mItemContentComparator == null)
+            diffAnalyser.setContentComparator(null, null);
+        else
+            diffAnalyser.setContentComparator(getVisibleItemsList(), mItemContentComparator);
+        diffAnalyser.setCostLimit(mDiffCostLimit);
+
+        diffAnalyser.findDiff(new AdapterItemSource(adapter),
+                mFirstGlobalItemIndex,
+                getActualItemsCount() * DIFF_WINDOW_RATIO);
+        if (diffAnalyser.isCostLimitExceeded()) {
+            Log.dh(this, "Diff cost limit is exceeded");
+            finishListUpdate();
+            rebindItems();
+            return;
+        }
 
-        Adapter adapter = getAdapter();
-        diffAnalyser.findDiff(adapter);
+        startListUpdate(diffAnalyser.getSubsetOffset(),
+                diffAnalyser.getChangeRuns(),
+                diffAnalyser.getChangeRunsCount());
+    }
+
+    private static int setChangeRun(int[] changeRuns,
+            int changeRunsCount,
+            int operation,
+            int listPosition,
+            int adapterPosition,
+            int length,
+            int newListPosition) {
+        int runOffset = changeRunsCount * DiffAnalyser.RUN_SIZE;
+        changeRuns[runOffset + DiffAnalyser.RUN_OPERATION] = operation;
+        changeRuns[runOffset + DiffAnalyser.RUN_LIST_POSITION] = listPosition;
+        changeRuns[runOffset + DiffAnalyser.RUN_ADAPTER_POSITION] = adapterPosition;
+        changeRuns[runOffset + DiffAnalyser.RUN_LENGTH] = length;
+        changeRuns[runOffset + DiffAnalyser.RUN_NEW_LIST_POSITION] = newListPosition;
+        return changeRunsCount + 1;
+    }
 
-        startListUpdate(diffAnalyser.getSubsetOffset(), diffAnalyser.getChanges());
+    /**
+     *******************************************************************************************************************
+     * Checks if changes reported by {@code notifyItem...()} methods can be applied to displayed items directly. While
+     * update animation is running displayed items are compared with adapter items as on data set change instead.
+     * Measured item widths should be updated before the check
+     *******************************************************************************************************************
+     */
+    private boolean checkIfCanApplyKnownChanges() {
+        getItemsManager().invalidateItemInfoCount();
+        if (mItems.size() == 0) { // Nothing is displayed, so layout creates items from scratch
+            updateDisplayedDataVersion();
+            requestLayout();
+            return false;
+        }
+        if (mInsertDeleteAction != null) {
+            // Displayed items are mixed with items collapsed by running update, so reported positions are not mapped
+            // to them directly
+            mIsDisplayedDataVersionKnown = false;
+            onAdapterDataChanged();
+            return false;
+        }
+        updateDisplayedDataVersion();
+        return true;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Notifies the view that {@code itemCount} items were inserted to adapter at {@code positionStart}. Displayed items
+     * are updated without comparing them with adapter items unless update animation is running. The method is used
+     * instead of {@link android.widget.BaseAdapter#notifyDataSetChanged()}
+     *******************************************************************************************************************
+     */
+    public void notifyItemRangeInserted(int positionStart, int itemCount) {
+        Log.dh(this, positionStart, itemCount);
+        if (itemCount <= 0)
+            return;
+        shiftItemWidths(positionStart, itemCount);
+        if (!checkIfCanApplyKnownChanges())
+            return;
+
+        int firstItemIndex = mFirstGlobalItemIndex;
+        int displayedItemsCount = getActualItemsCount();
+        if (positionStart < firstItemIndex) { // Items are inserted before displayed ones
+            mFirstGlobalItemIndex = firstItemIndex + itemCount;
+            return;
+        }
+        int listPosition = positionStart - firstItemIndex;
+        if (listPosition > displayedItemsCount) // Items are inserted after displayed ones
+            return;
+
+        int[] changeRuns = mKnownChangeRuns;
+        int changeRunsCount = 0;
+        int insertedItemsCount = itemCount;
+        if (insertedItemsCount > displayedItemsCount) { // Only part of inserted items can be seen. Displayed items
+            insertedItemsCount = displayedItemsCount;   // after them are pushed out of view and are deleted
+            if (listPosition < displayedItemsCount)
+                changeRunsCount = setChangeRun(changeRuns, changeRunsCount, DiffAnalyser.OPERATION_DELETE,
+                        listPosition, -1, displayedItemsCount - listPosition, -1);
+        }
+        changeRunsCount = setChangeRun(changeRuns, changeRunsCount, DiffAnalyser.OPERATION_INSERT,
+                listPosition, positionStart, insertedItemsCount, -1);
+        startListUpdate(firstItemIndex, changeRuns, changeRunsCount);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Notifies the view that {@code itemCount} items were removed from adapter starting from {@code positionStart}
+     *******************************************************************************************************************
+     */
+    public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        Log.dh(this, positionStart, itemCount);
+        if (itemCount <= 0)
+            return;
+        shiftItemWidths(positionStart, -itemCount);
+        if (!checkIfCanApplyKnownChanges())
+            return;
+
+        int firstItemIndex = mFirstGlobalItemIndex;
+        int displayedItemsEnd = firstItemIndex + getActualItemsCount();
+        int positionEnd = positionStart + itemCount;
+        int removedItemsBeforeCount = Math.max(0, Math.min(positionEnd, firstItemIndex) - positionStart);
+        int removedDisplayedItemsStart = Math.max(positionStart, firstItemIndex);
+        int removedDisplayedItemsCount = Math.min(positionEnd, displayedItemsEnd) - removedDisplayedItemsStart;
+        if (removedDisplayedItemsCount <= 0) {
+            mFirstGlobalItemIndex = firstItemIndex - removedItemsBeforeCount;
+            return;
+        }
+
+        int changeRunsCount = setChangeRun(mKnownChangeRuns, 0, DiffAnalyser.OPERATION_DELETE,
+                removedDisplayedItemsStart - firstItemIndex, -1, removedDisplayedItemsCount, -1);
+        startListUpdate(firstItemIndex - removedItemsBeforeCount, mKnownChangeRuns, changeRunsCount);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Notifies the view that content of {@code itemCount} adapter items starting from {@code positionStart} was
+     * changed. Displayed views of the items are rebound
+     *******************************************************************************************************************
+     */
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        Log.dh(this, positionStart, itemCount);
+        if (itemCount <= 0)
+            return;
+        invalidateItemWidths();
+        if (!checkIfCanApplyKnownChanges())
+            return;
+
+        int firstItemIndex = mFirstGlobalItemIndex;
+        int changedItemsStart = Math.max(positionStart, firstItemIndex);
+        int changedItemsEnd = Math.min(positionStart + itemCount, firstItemIndex + getActualItemsCount());
+        int changedItemsCount = changedItemsEnd - changedItemsStart;
+        if (changedItemsCount <= 0)
+            return;
+
+        int changeRunsCount = setChangeRun(mKnownChangeRuns, 0, DiffAnalyser.OPERATION_CHANGE,
+                changedItemsStart - firstItemIndex, changedItemsStart, changedItemsCount, -1);
+        startListUpdate(firstItemIndex, mKnownChangeRuns, changeRunsCount);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Notifies the view that adapter item was moved from {@code fromPosition} to {@code toPosition}
+     *******************************************************************************************************************
+     */
+    public void notifyItemMoved(int fromPosition, int toPosition) {
+        Log.dh(this, fromPosition, toPosition);
+        if (fromPosition == toPosition)
+            return;
+        invalidateItemWidths();
+        if (!checkIfCanApplyKnownChanges())
+            return;
+
+        int firstItemIndex = mFirstGlobalItemIndex;
+        int displayedItemsCount = getActualItemsCount();
+        int displayedItemsEnd = firstItemIndex + displayedItemsCount;
+        boolean isFromDisplayed = fromPosition >= firstItemIndex && fromPosition < displayedItemsEnd;
+
+        int newFirstItemIndex = firstItemIndex; // Index of the first displayed item which is not moved
+        if (fromPosition < firstItemIndex)
+            newFirstItemIndex--;
+        if (toPosition < newFirstItemIndex)
+            newFirstItemIndex++;
+
+        int[] changeRuns = mKnownChangeRuns;
+        int changeRunsCount = 0;
+        if (isFromDisplayed) {
+            int listPosition = fromPosition - firstItemIndex;
+            if (toPosition >= firstItemIndex && toPosition < displayedItemsEnd) {
+                int newListPosition = toPosition - firstItemIndex;
+                if (toPosition > fromPosition) // Gap left by the item is still in list
+                    newListPosition++;
+                changeRunsCount = setChangeRun(changeRuns, changeRunsCount, DiffAnalyser.OPERATION_MOVE,
+                        listPosition, toPosition, 1, newListPosition);
+                newFirstItemIndex = firstItemIndex;
+            } else
+                changeRunsCount = setChangeRun(changeRuns, changeRunsCount, DiffAnalyser.OPERATION_DELETE,
+                        listPosition, -1, 1, -1);
+        } else {
+            int newListPosition = toPosition - newFirstItemIndex;
+            if (newListPosition >= 0 && newListPosition <= displayedItemsCount)
+                changeRunsCount = setChangeRun(changeRuns, changeRunsCount, DiffAnalyser.OPERATION_INSERT,
+                        newListPosition, toPosition, 1, -1);
+        }
+
+        if (changeRunsCount == 0)
+            mFirstGlobalItemIndex = newFirstItemIndex;
+        else
+            startListUpdate(newFirstItemIndex, changeRuns, changeRunsCount);
+    }
+
+    private void cancelSubmittedList() {
+        mSubmittedListGeneration++;
+        if (mSubmittedListDiff != null) {
+            mSubmittedListDiff.cancel(true);
+            mSubmittedListDiff = null;
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Replaces adapter items with {@code items} and animates the difference. Snapshot of {@code items} is made and the
+     * difference is searched for it on background thread, and the difference is applied on UI thread. If another list
+     * is submitted before the difference is applied the older list is discarded.
+     * @param items - new adapter items. Adapter has to implement {@link SnapshotAdapter}. The list must not be modified
+     * until it is copied on background thread, so a new list should be submitted instead of modified one
+     *******************************************************************************************************************
+     */
+    public void submitList(List<?> items) {
+        if (!(getAdapter() instanceof SnapshotAdapter))
+            throw new IllegalStateException("Adapter has to implement SnapshotAdapter to accept lists");
+
+        cancelSubmittedList();
+        submitListDiff(items, false, 1);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Starts search of difference between displayed items and submitted list on background thread
+     * @param isSnapshot - {@code true} if {@code items} is snapshot made by previous search already
+     * @param attempt - number of the search for the same list
+     *******************************************************************************************************************
+     */
+    private void submitListDiff(List<?> items, boolean isSnapshot, int attempt) {
+        SnapshotAdapter adapter = (SnapshotAdapter) getAdapter();
+        if (mListDiffAnalyser == null)
+            mListDiffAnalyser = mDiffStrategy.createAnalyser();
+        ListDiffTask diffTask = new ListDiffTask(mSubmittedListGeneration,
+                attempt,
+                items,
+                isSnapshot,
+                getVisibleItemsList(),
+                adapter.hasStableIds() ? getVisibleItemIDsList() : null,
+                adapter,
+                mFirstGlobalItemIndex,
+                mListDiffAnalyser,
+                mItemContentComparator,
+                mDiffCostLimit);
+        mSubmittedListDiff = DIFF_EXECUTOR.submit(diffTask);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Compares displayed items with ones which difference was searched for. Global index of the first item is not
+     * compared because change runs are relative to displayed items
+     *******************************************************************************************************************
+     */
+    private boolean isVisibleItemsListChanged(Object[] visibleItems) {
+        ItemInfoDeque items = mItems;
+        int itemsCount = items.size();
+        if (getActualItemsCount() != visibleItems.length)
+            return true;
+
+        int visibleItemIndex = 0;
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            ItemInfo item = items.get(counterItem);
+            if (isItemCollapsing(item))
+                continue;
+            if (((ListItemInfo) item).getItem() != visibleItems[visibleItemIndex])
+                return true;
+            visibleItemIndex++;
+        }
+        return false;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Applies difference found for submitted list on UI thread. If displayed items were changed meanwhile (the list was
+     * scrolled, for example) the difference is searched again on background thread for them. The difference is never
+     * searched on UI thread: if displayed items are changed again the list is committed without animation, so
+     * continuous scrolling can not delay the commit
+     *******************************************************************************************************************
+     */
+    private void commitSubmittedList(ListDiffTask diffTask) {
+        if (diffTask.getGeneration() != mSubmittedListGeneration) // A newer list has been submitted
+            return;
+        mSubmittedListDiff = null;
+
+        List<?> snapshot = diffTask.getItems();
+        boolean isVisibleItemsListChanged = isVisibleItemsListChanged(diffTask.getVisibleItems());
+        if (isVisibleItemsListChanged && diffTask.getAttempt() < SUBMITTED_LIST_DIFF_ATTEMPTS) {
+            Log.dh(this, "Displayed items are changed");
+            submitListDiff(snapshot, true, diffTask.getAttempt() + 1);
+            return;
+        }
+
+        SnapshotAdapter adapter = (SnapshotAdapter) getAdapter();
+        mIsSubmittedListCommitting = true;
+        try {
+            adapter.setItems(snapshot);
+        } finally {
+            mIsSubmittedListCommitting = false;
+        }
+        getItemsManager().invalidateItemInfoCount();
+        invalidateItemWidths();
+        updateDisplayedDataVersion();
+
+        if (isVisibleItemsListChanged || diffTask.isCostLimitExceeded()) {
+            Log.dh(this, "Submitted list is committed without animation");
+            finishListUpdate();
+            rebindItems();
+        } else
+            startListUpdate(diffTask.getSubsetOffset(), diffTask.getChangeRuns(), diffTask.getChangeRunsCount());
     }
 
     protected static class ListItemInfo extends HorizontalAbsListView.ItemInfo {
         private View mView;
         private Object mItem;
+        private long mItemID;
         private int mViewTypeID;
 
+        private boolean mIsSliding;
+        private int mSlidingViewLeft;
+
+        private UpdateStep mUpdateStep;
+
         @Override
         public void createItemViews(HorizontalAbsListView parent,
                 int itemIndex,
@@ -318,21 +1059,57 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
                 HorizontalAbsListView.ViewCache viewCache) {
             int viewType = adapter.getItemViewType(itemIndex);
             View cachedView = viewCache.poll(viewType);
-            mView = adapter.getView(itemIndex, cachedView, parent);
+            setView(parent, adapter.getView(itemIndex, cachedView, parent));
+
+            mItem = adapter.getItem(itemIndex);
+            if (adapter.hasStableIds())
+                mItemID = adapter.getItemId(itemIndex);
+            mViewTypeID = adapter.getItemViewType(itemIndex);
+            mUpdateStep = null;
+            setRecyclingAvailable(true);
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Binds item views to changed adapter item. Adapter gets existing view for reuse
+         * @return {@code true} if views have to be measured again
+         ***************************************************************************************************************
+         */
+        public boolean rebindItemViews(HorizontalAbsListView parent, int itemIndex, Adapter adapter) {
+            View oldView = mView;
+            int viewType = adapter.getItemViewType(itemIndex);
+            View convertView = viewType == mViewTypeID ? oldView : null;
+            View newView = adapter.getView(itemIndex, convertView, parent);
+
+            mItem = adapter.getItem(itemIndex);
+            if (adapter.hasStableIds())
+                mItemID = adapter.getItemId(itemIndex);
+            mViewTypeID = viewType;
+
+            if (newView == oldView)
+                return newView.isLayoutRequested();
+
+            removeItemViews(parent);
+            setView(parent, newView);
+            addItemViews(parent);
+            return true;
+        }
 
-            mItem = adapter.getItem(itemIndex);
-            mViewTypeID = adapter.getItemViewType(itemIndex);
-            setRecyclingAvailable(true);
+        /**
+         ***************************************************************************************************************
+         * Binds view to the item. Prefetched views are measured before they are added to list view, so default layout
+         * params are set here
+         ***************************************************************************************************************
+         */
+        private void setView(HorizontalAbsListView parent, View view) {
+            if (view.getLayoutParams() == null)
+                view.setLayoutParams(parent.generateDefaultLayoutParams());
+            mView = view;
         }
 
         @Override
         public void addItemViews(HorizontalAbsListView parent) {
-            LayoutParams params = mView.getLayoutParams();
-            if (params == null) {
-                params = parent.generateDefaultLayoutParams();
-                mView.setLayoutParams(params);
-            }
-            parent.addViewInLayout(mView, -1, params, true);
+            parent.addViewInLayout(mView, -1, mView.getLayoutParams(), true);
         }
 
         @Override
@@ -349,6 +1126,7 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
             }
             mView = null;
             mItem = null;
+            mUpdateStep = null;
         }
 
         @Override
@@ -373,9 +1151,43 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
             measureViewsBySpecs(parentSpecWidth, 0, parentSpecHeight, 0);
         }
 
+        @Override
+        public void measureViews(int parentWidth, int parentHeight, int knownWidth) {
+            LayoutParams params = mView.getLayoutParams();
+            int parentSpecHeight = MeasureSpec.makeMeasureSpec(parentHeight, MeasureSpec.EXACTLY);
+            int childSpecWidth = MeasureSpec.makeMeasureSpec(knownWidth, MeasureSpec.EXACTLY);
+            int childSpecHeight = getChildMeasureSpec(parentSpecHeight, 0, params.height);
+
+            mView.measure(childSpecWidth, childSpecHeight);
+            setWidth(mView.getMeasuredWidth());
+            setHeight(mView.getMeasuredHeight());
+        }
+
+        @Override
+        protected boolean isLayoutRequested() {
+            return mView.isLayoutRequested();
+        }
+
         @Override
         protected void onLayoutViews(int left, int top, int width) {
-            mView.layout(left, top, left + width, top + getHeight());
+            if (mIsSliding) {
+                int viewLeft = left - getLeft() + mSlidingViewLeft;
+                mView.layout(viewLeft, top, viewLeft + getWidth(), top + getHeight());
+            } else
+                mView.layout(left, top, left + width, top + getHeight());
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Lays out item occupying {@code width} points at {@code left} while its view keeps measured width and is
+         * placed at {@code viewLeft}. It is used when item slides to another position
+         ***************************************************************************************************************
+         */
+        public void layoutSlidingViews(int left, int viewLeft, int paddingLeft, int paddingTop, int width) {
+            mIsSliding = true;
+            mSlidingViewLeft = viewLeft;
+            layoutViews(left, paddingLeft, paddingTop, width);
+            mIsSliding = false;
         }
 
         @Override
@@ -407,6 +1219,28 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
             return mItem;
         }
 
+        /**
+         ***************************************************************************************************************
+         * @return stable ID of adapter item. It is defined only when adapter has stable IDs
+         ***************************************************************************************************************
+         */
+        public long getItemID() {
+            return mItemID;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * @return step of running update which animates the item or {@code null} if the item is not animated
+         ***************************************************************************************************************
+         */
+        private UpdateStep getUpdateStep() {
+            return mUpdateStep;
+        }
+
+        private void setUpdateStep(UpdateStep updateStep) {
+            mUpdateStep = updateStep;
+        }
+
         public void startAnimation(Animation animation) {
             if (animation == null)
                 return;
@@ -420,6 +1254,106 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
         }
     }
 
+    /**
+     *******************************************************************************************************************
+     * Item without views which occupies old position of moved item until the position collapses
+     *******************************************************************************************************************
+     */
+    private static class GapItemInfo extends ListItemInfo {
+        private Object mItem;
+        private final long mItemID;
+
+        private GapItemInfo(ListItemInfo movedItem) {
+            setListView(movedItem.getListView());
+            mItem = movedItem.getItem();
+            mItemID = movedItem.getItemID();
+            setWidth(movedItem.getRight() - movedItem.getLeft()); // Moved item may be animated, so the gap starts
+            setHeight(movedItem.getHeight());                      // from its displayed width
+            layoutViews(movedItem.getLeft(), 0, 0);
+        }
+
+        @Override
+        public void createItemViews(HorizontalAbsListView parent,
+                int itemIndex,
+                Adapter adapter,
+                HorizontalAbsListView.ViewCache viewCache) {
+            // No action
+        }
+
+        @Override
+        public void addItemViews(HorizontalAbsListView parent) {
+            // No action
+        }
+
+        @Override
+        public void removeItemViews(HorizontalAbsListView parent) {
+            // No action
+        }
+
+        @Override
+        public void recycleItemViews(HorizontalAbsListView.ViewCache viewCache) {
+            mItem = null;
+        }
+
+        @Override
+        public void measureViewsBySpecs(int parentSpecWidth,
+                int paddingHorizontal,
+                int parentSpecHeight,
+                int paddingVertical) {
+            // No action
+        }
+
+        @Override
+        public void measureViews(int parentWidth, int parentHeight) {
+            // No action
+        }
+
+        @Override
+        protected boolean isLayoutRequested() {
+            return false;
+        }
+
+        @Override
+        protected void onLayoutViews(int left, int top, int width) {
+            // No action
+        }
+
+        @Override
+        protected void onOffsetViews(int dX) {
+            // No action
+        }
+
+        @Override
+        public void showPressed(int touchX, int touchY) {
+            // No action
+        }
+
+        @Override
+        public void hidePressed() {
+            // No action
+        }
+
+        @Override
+        public View findAdapterViewItem(int x, int y) {
+            return null;
+        }
+
+        @Override
+        public Object getItem() {
+            return mItem;
+        }
+
+        @Override
+        public long getItemID() {
+            return mItemID;
+        }
+
+        @Override
+        public void startAnimation(Animation animation) {
+            // No action
+        }
+    }
+
     protected static class ListItemInfoManager<A extends Adapter> extends ItemInfoManager<A> {
         public ListItemInfoManager(A adapter) {
             super(adapter);
@@ -436,6 +1370,12 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
         }
     }
 
+    /**
+     *******************************************************************************************************************
+     * Step of animated update. Every step animates width of single item from its displayed width to the final one.
+     * When changes are merged to running update the step is started again from the width displayed at that moment.
+     *******************************************************************************************************************
+     */
     private interface UpdateStep {
         public void start();
         public int makeStep(float interpolatedTime);
@@ -446,6 +1386,7 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
     private class InsertStep implements UpdateStep {
         private final ListItemInfo mItem;
 
+        private int mStartWidth;
         private int mPreviousWidth;
 
         public InsertStep(ListItemInfo item) {
@@ -455,21 +1396,24 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
 
         @Override
         public void start() {
-            mPreviousWidth = 0;
+            ListItemInfo item = mItem;
+            item.setUpdateStep(this);
+            mStartWidth = item.getRight() - item.getLeft();
+            mPreviousWidth = mStartWidth;
         }
 
         @Override
         public int makeStep(float interpolatedTime) {
             ItemInfo item = mItem;
+            int startWidth = mStartWidth;
             int finalWidth = item.getWidth();
-            int currentWidth = Math.round(finalWidth * interpolatedTime);
-            currentWidth = Math.min(currentWidth, finalWidth);
+            int currentWidth = startWidth + Math.round((finalWidth - startWidth) * interpolatedTime);
 
             item.layoutViews(item.getLeft(), getPaddingLeft(), getPaddingTop(), currentWidth);
 
             int delta = currentWidth - mPreviousWidth;
             mPreviousWidth = currentWidth;
-            ArrayList<ItemInfo> items = mItems;
+            ItemInfoDeque items = mItems;
             int itemIndex = items.indexOf(item);
             shiftItems(itemIndex + 1, items.size() - itemIndex - 1, delta);
 
@@ -483,13 +1427,14 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
 
         @Override
         public void finish() {
-            // No action
+            mItem.setUpdateStep(null);
         }
     }
 
     private class DeleteStep implements UpdateStep {
         private final ListItemInfo mItem;
 
+        private int mStartWidth;
         private int mPreviousWidth;
 
         private DeleteStep(ListItemInfo item) {
@@ -499,21 +1444,23 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
 
         @Override
         public void start() {
-            mPreviousWidth = mItem.getWidth();
+            ListItemInfo item = mItem;
+            item.setUpdateStep(this);
+            mStartWidth = item.getRight() - item.getLeft();
+            mPreviousWidth = mStartWidth;
         }
 
         @Override
         public int makeStep(float interpolatedTime) {
             ItemInfo item = mItem;
-            int startWidth = item.getWidth();
-            int currentWidth = Math.round(startWidth * (1 - interpolatedTime));
+            int currentWidth = Math.round(mStartWidth * (1 - interpolatedTime));
             currentWidth = Math.max(0, currentWidth);
 
             item.layoutViews(item.getLeft(), getPaddingLeft(), getPaddingTop(), currentWidth);
 
             int delta = currentWidth - mPreviousWidth;
             mPreviousWidth = currentWidth;
-            ArrayList<ItemInfo> items = mItems;
+            ItemInfoDeque items = mItems;
             int itemIndex = items.indexOf(item);
             shiftItems(itemIndex + 1, items.size() - itemIndex - 1, delta);
 
@@ -527,39 +1474,187 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
 
         @Override
         public void finish() {
-            ArrayList<ItemInfo> items = mItems;
+            ItemInfoDeque items = mItems;
             int itemIndex = items.indexOf(mItem);
             if (itemIndex != -1) {
                 items.remove(itemIndex);
                 getItemsManager().recycleItemInfo(HorizontalListView.this, mItem);
             }
+            mItem.setUpdateStep(null);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Slides view of moved item from its old position (gap) to the new one. The new position is expanded as for
+     * inserted item while the gap is collapsed by {@link DeleteStep}. The view is neither rebound nor measured.
+     *******************************************************************************************************************
+     */
+    private class MoveStep implements UpdateStep {
+        private final ListItemInfo mItem;
+
+        private int mStartWidth;
+        private int mPreviousWidth;
+        private int mStartViewOffset;
+        private int mViewOffset; // Offset of the sliding view from the item position
+
+        public MoveStep(ListItemInfo item, ListItemInfo gap) {
+            mItem = item;
+            mViewOffset = gap.getLeft() - item.getLeft();
+            item.setRecyclingAvailable(false);
+        }
+
+        @Override
+        public void start() {
+            ListItemInfo item = mItem;
+            item.setUpdateStep(this);
+            mStartWidth = item.getRight() - item.getLeft();
+            mPreviousWidth = mStartWidth;
+            mStartViewOffset = mViewOffset;
+        }
+
+        @Override
+        public int makeStep(float interpolatedTime) {
+            ListItemInfo item = mItem;
+            int startWidth = mStartWidth;
+            int finalWidth = item.getWidth();
+            int currentWidth = startWidth + Math.round((finalWidth - startWidth) * interpolatedTime);
+
+            int itemLeft = item.getLeft();
+            int viewOffset = Math.round(mStartViewOffset * (1 - interpolatedTime));
+            mViewOffset = viewOffset;
+            item.layoutSlidingViews(itemLeft, itemLeft + viewOffset, getPaddingLeft(), getPaddingTop(), currentWidth);
+
+            int delta = currentWidth - mPreviousWidth;
+            mPreviousWidth = currentWidth;
+            ItemInfoDeque items = mItems;
+            int itemIndex = items.indexOf(item);
+            shiftItems(itemIndex + 1, items.size() - itemIndex - 1, delta);
+
+            return delta;
+        }
+
+        @Override
+        public boolean isValid() {
+            return mItem.getItem() != null;
+        }
+
+        @Override
+        public void finish() {
+            ListItemInfo item = mItem;
+            if (item.getItem() != null)
+                item.layoutViews(item.getLeft(), getPaddingLeft(), getPaddingTop());
+            item.setRecyclingAvailable(true);
+            item.setUpdateStep(null);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Resizes item rebound to changed adapter item if its width is changed
+     *******************************************************************************************************************
+     */
+    private class ChangeStep implements UpdateStep {
+        private final ListItemInfo mItem;
+
+        private int mStartWidth;
+        private int mPreviousWidth;
+
+        public ChangeStep(ListItemInfo item) {
+            mItem = item;
+            item.setRecyclingAvailable(false);
+        }
+
+        @Override
+        public void start() {
+            ListItemInfo item = mItem;
+            item.setUpdateStep(this);
+            mStartWidth = item.getRight() - item.getLeft();
+            mPreviousWidth = mStartWidth;
+        }
+
+        @Override
+        public int makeStep(float interpolatedTime) {
+            ItemInfo item = mItem;
+            int startWidth = mStartWidth;
+            int currentWidth = startWidth + Math.round((item.getWidth() - startWidth) * interpolatedTime);
+
+            item.layoutViews(item.getLeft(), getPaddingLeft(), getPaddingTop(), currentWidth);
+
+            int delta = currentWidth - mPreviousWidth;
+            mPreviousWidth = currentWidth;
+            ItemInfoDeque items = mItems;
+            int itemIndex = items.indexOf(item);
+            shiftItems(itemIndex + 1, items.size() - itemIndex - 1, delta);
+
+            return delta;
+        }
+
+        @Override
+        public boolean isValid() {
+            return mItem.getItem() != null;
+        }
+
+        @Override
+        public void finish() {
+            ListItemInfo item = mItem;
+            if (item.getItem() != null)
+                item.layoutViews(item.getLeft(), getPaddingLeft(), getPaddingTop());
+            item.setRecyclingAvailable(true);
+            item.setUpdateStep(null);
         }
     }
 
     private class InsertDeleteAction implements Runnable {
         private final ArrayList<UpdateStep> mUpdateSteps;
-        private final long mStartTime;
-        private final long mDuration;
+        private final long mEndTime;
+        private long mStartTime;
+        private long mDuration;
         private int mDeletionsCount;
 
         public InsertDeleteAction(ArrayList<UpdateStep> updateSteps, long duration) {
             mUpdateSteps = updateSteps;
-            mStartTime = System.currentTimeMillis();
-            mDuration = duration;
+            mEndTime = System.currentTimeMillis() + Math.max(1, duration);
+            restart();
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Starts all steps again from displayed widths of items. They reach final widths at the end of update. Widths
+         * change linearly in time, so running steps continue at the same pace rather than start over
+         ***************************************************************************************************************
+         */
+        public void restart() {
+            long currentTime = System.currentTimeMillis();
+            mStartTime = currentTime;
+            mDuration = Math.max(1, mEndTime - currentTime);
 
+            ArrayList<UpdateStep> steps = mUpdateSteps;
             int deletionsCount = 0;
-            for(UpdateStep updateStep : updateSteps) {
+            for(UpdateStep updateStep : steps) {
                 updateStep.start();
                 if (updateStep instanceof DeleteStep)
                     deletionsCount++;
             }
             mDeletionsCount = deletionsCount;
+
+            makeSteps(0.0f); // Items are laid out at their start widths before the next frame is drawn
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Merges steps of new changes. New steps take the remaining time of the update, so all items reach final
+         * widths together and the update is not prolonged by every change
+         ***************************************************************************************************************
+         */
+        public void addSteps(ArrayList<UpdateStep> updateSteps) {
+            mUpdateSteps.addAll(updateSteps);
+            restart();
         }
 
-        public long getRemainingTime() {
-            long remainingTime = mDuration - System.currentTimeMillis() + mStartTime;
-            Math.max(0, remainingTime);
-            return remainingTime;
+        public void removeStep(UpdateStep updateStep) {
+            if (mUpdateSteps.remove(updateStep) && updateStep instanceof DeleteStep)
+                mDeletionsCount--;
         }
 
         public int getDeletionsCount() {
@@ -590,7 +1685,7 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
             }
         }
 
-        private void finishSteps() {
+        public void finishSteps() {
             for(UpdateStep step : mUpdateSteps)
                 step.finish();
         }
@@ -626,32 +1721,183 @@ public class HorizontalListView<A extends Adapter> extends HorizontalAbsListView
         }
     }
 
-    private class PostponedDataChangedUpdate implements Runnable {
+    /**
+     *******************************************************************************************************************
+     * Adapter items seen by {@link DiffAnalyser}
+     *******************************************************************************************************************
+     */
+    private static class AdapterItemSource implements ItemSource {
+        private final Adapter mAdapter;
+
+        public AdapterItemSource(Adapter adapter) {
+            mAdapter = adapter;
+        }
+
         @Override
-        public void run() {
-            onAdapterDataChanged();
-            mPostponedDataChangedUpdate = null;
+        public int getCount() {
+            return mAdapter.getCount();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return mAdapter.getItem(position);
+        }
+
+        @Override
+        public long getItemID(int position) {
+            return mAdapter.getItemId(position);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Items of submitted list seen by {@link DiffAnalyser}. Stable IDs are requested from adapter for items which are
+     * not set to it yet
+     *******************************************************************************************************************
+     */
+    private static class SnapshotItemSource implements ItemSource {
+        private final List<?> mItems;
+        private final SnapshotAdapter mAdapter;
+
+        public SnapshotItemSource(List<?> items, SnapshotAdapter adapter) {
+            mItems = items;
+            mAdapter = adapter;
+        }
+
+        @Override
+        public int getCount() {
+            return mItems.size();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return mItems.get(position);
+        }
+
+        @Override
+        public long getItemID(int position) {
+            return mAdapter.getSnapshotItemId(mItems.get(position));
         }
     }
 
-    private class PostponedLayoutUpdate implements Runnable {
-        private final boolean mIsChanged;
-        private final int mLeft;
-        private final int mTop;
-        private final int mRight;
-        private final int mBottom;
+    /**
+     *******************************************************************************************************************
+     * Searches for difference between displayed items and submitted list on background thread. Submitted list is
+     * copied there too, so long lists do not stall UI thread
+     *******************************************************************************************************************
+     */
+    private class ListDiffTask implements Runnable {
+        private final int mGeneration;
+        private final int mAttempt;
+        private final List<?> mSourceItems;
+        private final boolean mIsSnapshot;
+        private final Object[] mVisibleItems;
+        private final long[] mVisibleItemIDs; // Items are compared by stable IDs if adapter has them
+        private final SnapshotAdapter mAdapter;
+        private final int mFirstItemIndex;
+        private final DiffAnalyser mDiffAnalyser;
+        private final ItemContentComparator mItemContentComparator;
+        private final int mDiffCostLimit;
+
+        private List<?> mItems;
+        private boolean mIsCostLimitExceeded;
+        private int mSubsetOffset;
+        private int[] mChangeRuns;
+        private int mChangeRunsCount;
+
+        private ListDiffTask(int generation,
+                int attempt,
+                List<?> items,
+                boolean isSnapshot,
+                Object[] visibleItems,
+                long[] visibleItemIDs,
+                SnapshotAdapter adapter,
+                int firstItemIndex,
+                DiffAnalyser diffAnalyser,
+                ItemContentComparator itemContentComparator,
+                int diffCostLimit) {
+            mGeneration = generation;
+            mAttempt = attempt;
+            mSourceItems = items;
+            mIsSnapshot = isSnapshot;
+            mVisibleItems = visibleItems;
+            mVisibleItemIDs = visibleItemIDs;
+            mAdapter = adapter;
+            mFirstItemIndex = firstItemIndex;
+            mDiffAnalyser = diffAnalyser;
+            mItemContentComparator = itemContentComparator;
+            mDiffCostLimit = diffCostLimit;
+        }
+
+        public int getGeneration() {
+            return mGeneration;
+        }
+
+        public int getAttempt() {
+            return mAttempt;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * @return immutable snapshot of submitted list
+         ***************************************************************************************************************
+         */
+        public List<?> getItems() {
+            return mItems;
+        }
+
+        public Object[] getVisibleItems() {
+            return mVisibleItems;
+        }
+
+        public boolean isCostLimitExceeded() {
+            return mIsCostLimitExceeded;
+        }
+
+        public int getSubsetOffset() {
+            return mSubsetOffset;
+        }
+
+        public int[] getChangeRuns() {
+            return mChangeRuns;
+        }
 
-        private PostponedLayoutUpdate(boolean isChanged, int left, int top, int right, int bottom) {
-            mIsChanged = isChanged;
-            mLeft = left;
-            mTop = top;
-            mRight = right;
-            mBottom = bottom;
+        public int getChangeRunsCount() {
+            return mChangeRunsCount;
         }
 
         @Override
         public void run() {
-            onLayout(mIsChanged, mLeft, mTop, mRight, mBottom);
+            List<?> items = mIsSnapshot
+                    ? mSourceItems
+                    : Collections.unmodifiableList(new ArrayList<Object>(mSourceItems));
+            mItems = items;
+
+            Object[] visibleItems = mVisibleItems;
+            DiffAnalyser diffAnalyser = mDiffAnalyser; // Tasks are executed one by one, so they can share analyser
+            if (mVisibleItemIDs == null)
+                diffAnalyser.setBaseList(visibleItems);
+            else
+                diffAnalyser.setBaseList(mVisibleItemIDs);
+            diffAnalyser.setContentComparator(visibleItems, mItemContentComparator);
+            diffAnalyser.setCostLimit(mDiffCostLimit);
+            diffAnalyser.findDiff(new SnapshotItemSource(items, mAdapter),
+                    mFirstItemIndex,
+                    visibleItems.length * DIFF_WINDOW_RATIO);
+            mIsCostLimitExceeded = diffAnalyser.isCostLimitExceeded();
+            mSubsetOffset = diffAnalyser.getSubsetOffset();
+            mChangeRuns = diffAnalyser.getChangeRuns(); // Runs are overwritten by next task only after newer list is
+                                                        // submitted, so the result is discarded then
+            mChangeRunsCount = diffAnalyser.getChangeRunsCount();
+
+            if (Thread.interrupted()) // The list is outdated already
+                return;
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    commitSubmittedList(ListDiffTask.this);
+                }
+            });
         }
     }
 }
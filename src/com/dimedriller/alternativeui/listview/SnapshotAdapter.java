@@ -0,0 +1,29 @@
+package com.dimedriller.alternativeui.listview;
+
+import android.widget.Adapter;
+
+import java.util.List;
+
+/**
+ ***********************************************************************************************************************
+ * Adapter which items can be replaced by list submitted to {@link HorizontalListView#submitList(List)}
+ ***********************************************************************************************************************
+ */
+public interface SnapshotAdapter extends Adapter {
+    /**
+     *******************************************************************************************************************
+     * Replaces adapter items. It is invoked on UI thread right before the difference is animated, so data set
+     * observers need not be notified
+     * @param items - immutable snapshot of submitted list
+     *******************************************************************************************************************
+     */
+    public void setItems(List<?> items);
+
+    /**
+     *******************************************************************************************************************
+     * @return stable ID which item of submitted list gets when the list is set to adapter. It is requested only if
+     * adapter has stable IDs, and it is invoked on background thread, so it must depend on the item only
+     *******************************************************************************************************************
+     */
+    public long getSnapshotItemId(Object item);
+}
@@ -0,0 +1,19 @@
+package com.dimedriller.alternativeui.listview;
+
+import android.widget.Adapter;
+
+/**
+ ***********************************************************************************************************************
+ * Adapter which reports version of its data. The version must be changed whenever items or their number are changed,
+ * so the number of items is cached while the version is the same and redundant data set change notifications do not
+ * cause search of the difference
+ ***********************************************************************************************************************
+ */
+public interface VersionedAdapter extends Adapter {
+    /**
+     *******************************************************************************************************************
+     * @return version of adapter data. Any value differing from previous one means that data is changed
+     *******************************************************************************************************************
+     */
+    public long getDataVersion();
+}
@@ -0,0 +1,151 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+/**
+ ***********************************************************************************************************************
+ * This analyser looks for adapter items (anchors) where the longest part of base list starts and greedily follows
+ * base list from each of them. The anchor giving the smallest number of changes is chosen. Anchors and pivots which
+ * would produce more changes than cost limit are dropped as soon as it becomes clear, so the work is bounded by the
+ * cost limit rather than by adapter items count.
+ ***********************************************************************************************************************
+ */
+public class AnchorDiffAnalyser extends DiffAnalyser {
+    public AnchorDiffAnalyser(Object[] baseList) {
+        super(baseList);
+    }
+
+    public AnchorDiffAnalyser(long[] baseListIDs) {
+        super(baseListIDs);
+    }
+
+    public AnchorDiffAnalyser() {
+        super();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Looks for subset among adapter items matched with base list. Adapter items which are absent in base list are
+     * not visited. Subsets which produce more changes than cost limit are skipped
+     * @param matchesMax - array where match indices corresponding first adapter items of found subsets are stored
+     * @return number of subsets found. It is 0 if no subset fits cost limit
+     *******************************************************************************************************************
+     */
+    private int findBaseListPositionInAdapter(int[] matchesMax) {
+        int matchesMaxCount = 0;
+        int metricsMax = 0;
+
+        int matchesCount = getMatchesCount();
+        int baseListItemsCount = getBaseListItemsCount();
+        int costLimit = getCostLimit();
+        for(int counterMatch = 0; counterMatch < matchesCount; counterMatch++) {
+            int firstAdapterPosition = getMatchAdapterPosition(counterMatch);
+            int baseListItemIndex = getMatchBaseListPositions(counterMatch)[0];
+            if (baseListItemIndex > costLimit) // Base list items before anchor are deleted
+                continue;
+
+            int metricsCurrent = 1;
+            int insertionsCount = 0;
+            int counterBaseListItem = baseListItemIndex + 1;
+            int counterSubsetMatch = counterMatch + 1;
+            while (  counterBaseListItem < baseListItemsCount
+                  && counterSubsetMatch < matchesCount
+                  && getMatchAdapterPosition(counterSubsetMatch) - firstAdapterPosition < baseListItemsCount) {
+                // Following matches are farther from anchor, so none of them can be a pivot when the current one
+                // produces too many changes
+                int subsetInsertionsCount = getMatchAdapterPosition(counterSubsetMatch) - firstAdapterPosition
+                        - metricsCurrent;
+                if (subsetInsertionsCount + counterBaseListItem - metricsCurrent > costLimit)
+                    break;
+
+                baseListItemIndex = findBaseListItemIndex(counterBaseListItem,
+                        getMatchBaseListPositions(counterSubsetMatch));
+
+                if (baseListItemIndex != -1) {
+                    counterBaseListItem = baseListItemIndex + 1;
+                    metricsCurrent++;
+                    insertionsCount = subsetInsertionsCount;
+                }
+
+                counterSubsetMatch++;
+            }
+
+            if (baseListItemsCount - metricsCurrent + insertionsCount > costLimit)
+                continue;
+
+            if (metricsCurrent > metricsMax) {
+                metricsMax = metricsCurrent;
+                matchesMax[0] = counterMatch;
+                matchesMaxCount = 1;
+            } else if(metricsCurrent == metricsMax) {
+                matchesMax[matchesMaxCount] = counterMatch;
+                matchesMaxCount++;
+            }
+        }
+        return matchesMaxCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Greedily follows base list starting from specific anchor
+     * @return number of pivots found
+     *******************************************************************************************************************
+     */
+    private int followBaseList(int firstMatch, int[] pivotBaseListPositions, int[] pivotAdapterPositions) {
+        int matchesCount = getMatchesCount();
+        int baseListItemsCount = getBaseListItemsCount();
+        int costLimit = getCostLimit();
+
+        int baseListStartPivot = getMatchBaseListPositions(firstMatch)[0];
+        int firstAdapterPivot = getMatchAdapterPosition(firstMatch);
+        pivotBaseListPositions[0] = baseListStartPivot;
+        pivotAdapterPositions[0] = firstAdapterPivot;
+        int pivotsCount = 1;
+
+        // Search is stopped when the last base list item becomes a pivot because no further pivots are possible
+        for(int counterMatch = firstMatch + 1;
+                counterMatch < matchesCount && baseListStartPivot + 1 < baseListItemsCount;
+                counterMatch++) {
+            int insertionsCount = getMatchAdapterPosition(counterMatch) - firstAdapterPivot - pivotsCount;
+            int skippedCount = baseListStartPivot + 1 - pivotsCount;
+            if (insertionsCount + skippedCount > costLimit)
+                break;
+
+            int baseListEndPivot = findBaseListItemIndex(baseListStartPivot + 1,
+                    getMatchBaseListPositions(counterMatch));
+            if (baseListEndPivot == -1)
+                continue;
+
+            pivotBaseListPositions[pivotsCount] = baseListEndPivot;
+            pivotAdapterPositions[pivotsCount] = getMatchAdapterPosition(counterMatch);
+            pivotsCount++;
+            baseListStartPivot = baseListEndPivot;
+        }
+        return pivotsCount;
+    }
+
+    @Override
+    protected int onFindPivots(int[] pivotBaseListPositions, int[] pivotAdapterPositions) {
+        int[] firstMatches = new int[getMatchesCount()];
+        int firstMatchesCount = findBaseListPositionInAdapter(firstMatches);
+        int baseListItemsCount = getBaseListItemsCount();
+        if (firstMatchesCount == 0) // Deletion of all base list items is the only option
+            return baseListItemsCount > getCostLimit() ? COST_LIMIT_EXCEEDED : 0;
+
+        int[] currentBaseListPositions = new int[baseListItemsCount];
+        int[] currentAdapterPositions = new int[baseListItemsCount];
+
+        int metricsMin = Integer.MAX_VALUE;
+        int pivotsCountMin = 0;
+        for(int counterFirstMatch = 0; counterFirstMatch < firstMatchesCount; counterFirstMatch++) {
+            int firstMatch = firstMatches[counterFirstMatch];
+            int pivotsCount = followBaseList(firstMatch, currentBaseListPositions, currentAdapterPositions);
+            int changesCount = computeChangesCount(currentAdapterPositions, pivotsCount);
+            if (changesCount < metricsMin) {
+                metricsMin = changesCount;
+                pivotsCountMin = pivotsCount;
+                System.arraycopy(currentBaseListPositions, 0, pivotBaseListPositions, 0, pivotsCount);
+                System.arraycopy(currentAdapterPositions, 0, pivotAdapterPositions, 0, pivotsCount);
+            }
+        }
+        return pivotsCountMin;
+    }
+}
@@ -0,0 +1,29 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+/**
+ ***********************************************************************************************************************
+ * Shows atomic difference between two lists: element stays in place but its content is changed
+ ***********************************************************************************************************************
+ */
+public class ChangeDiffAtom implements DiffAtom {
+    private final int mListPosition;
+    private final int mAdapterPosition;
+
+    public ChangeDiffAtom(int listPosition, int adapterPosition) {
+        mListPosition = listPosition;
+        mAdapterPosition = adapterPosition;
+    }
+
+    public int getListPosition() {
+        return mListPosition;
+    }
+
+    public int getAdapterPosition() {
+        return mAdapterPosition;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeDiffAtom { mListPosition = " + mListPosition + ", mAdapterPosition = " + mAdapterPosition + "}";
+    }
+}
@@ -1,20 +1,73 @@
 package com.dimedriller.alternativeui.listview.diff;
 
-import android.widget.Adapter;
-
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  ***********************************************************************************************************************
  * This class was designed to search for differences between subset of items represented by static list and any other
- * items set
+ * items set. Subclasses decide which items of the subset stay in place (pivots) and the class translates pivots to list
+ * of changes.
+ * Changes are encoded as runs stored in primitive array, so no object is allocated per changed item. Every run takes
+ * {@link #RUN_SIZE} array elements: operation, list position, adapter position, length and new list position. Runs
+ * follow in the order they have to be applied to list:
+ * <ul>
+ *     <li>{@link #OPERATION_DELETE} - {@code length} items starting from list position are deleted. Deleted items
+ *     keep their positions until all runs are applied, so list positions of next runs are not shifted</li>
+ *     <li>{@link #OPERATION_INSERT} - {@code length} adapter items starting from adapter position are inserted to
+ *     list starting from list position</li>
+ *     <li>{@link #OPERATION_MOVE} - list item is moved to new list position. It leaves gap at its old position which
+ *     is handled as deleted item. Length of the run is always 1</li>
+ *     <li>{@link #OPERATION_CHANGE} - {@code length} list items starting from list position stay in place but their
+ *     content is changed to adapter items starting from adapter position</li>
+ * </ul>
  ***********************************************************************************************************************
  */
-public class DiffAnalyser {
-    private final Object[] mBaseList;
+public abstract class DiffAnalyser {
+    public static final int OPERATION_DELETE = 0;
+    public static final int OPERATION_INSERT = 1;
+    public static final int OPERATION_MOVE = 2;
+    public static final int OPERATION_CHANGE = 3;
+
+    public static final int RUN_OPERATION = 0;
+    public static final int RUN_LIST_POSITION = 1;
+    public static final int RUN_ADAPTER_POSITION = 2;
+    public static final int RUN_LENGTH = 3;
+    public static final int RUN_NEW_LIST_POSITION = 4;
+    public static final int RUN_SIZE = 5;
+
+    public static final int NO_COST_LIMIT = Integer.MAX_VALUE;
+
+    protected static final int COST_LIMIT_EXCEEDED = -1;
+
+    private BaseListIndex mBaseListIndex;
+    private ItemBaseListIndex mItemBaseListIndex;
+    private ItemIDBaseListIndex mItemIDBaseListIndex;
+    private Object[] mBaseList;
+    private ItemContentComparator mContentComparator;
+
+    private int mMatchesCount;
+    private int[] mMatchAdapterPositions;
+    private int[][] mMatchBaseListPositions;
 
     private int mSubsetOffset;
-    private final ArrayList<DiffAtom> mChanges;
+    private int[] mPivotBaseListPositions = new int[0]; // Buffers of change search are kept between searches and grow
+    private int[] mPivotAdapterPositions = new int[0];  // only when base list or subset exceed their capacity
+    private int[] mMovedBaseListPositions = new int[0];
+    private int[] mListPositions = new int[0];
+    private boolean[] mIsBaseListItemUsed = new boolean[0];
+    private boolean[] mIsBaseListItemMoved = new boolean[0];
+    private final int[] mSubsetBounds = new int[SUBSET_BOUNDS_SIZE];
+    private int[] mChangeRuns;
+    private int mChangeRunsCount;
+    private int mCostLimit = NO_COST_LIMIT;
+    private boolean mIsCostLimitExceeded;
+
+    private static final int MATCHES_INITIAL_CAPACITY = 16;
+    private static final int CHANGE_RUNS_INITIAL_CAPACITY = 16;
+    private static final int SUBSET_BOUNDS_SIZE = 3; // Subset start, subset end and adapter position of the first
+                                                     // element of moved items buffer
 
     /**
      *******************************************************************************************************************
@@ -22,10 +75,62 @@ public class DiffAnalyser {
      * @param baseList - items subset
      *******************************************************************************************************************
      */
-    public DiffAnalyser(Object[] baseList) {
-        mBaseList = baseList;
+    protected DiffAnalyser(Object[] baseList) {
+        this();
+        setBaseList(baseList);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Creates instance of analyser for subset of items identified by stable IDs. Items are compared by
+     * {@link ItemSource#getItemID(int)} then, so items are not requested at all.
+     * @param baseListIDs - stable IDs of items subset
+     *******************************************************************************************************************
+     */
+    protected DiffAnalyser(long[] baseListIDs) {
+        this();
+        setBaseList(baseListIDs);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Creates instance of analyser for empty items subset. The subset is set by {@code setBaseList()} methods
+     *******************************************************************************************************************
+     */
+    protected DiffAnalyser() {
         mSubsetOffset = -1;
-        mChanges = new ArrayList<DiffAtom>();
+        mChangeRuns = new int[CHANGE_RUNS_INITIAL_CAPACITY * RUN_SIZE];
+        mMatchAdapterPositions = new int[MATCHES_INITIAL_CAPACITY];
+        mMatchBaseListPositions = new int[MATCHES_INITIAL_CAPACITY][];
+        setBaseList(new Object[0]);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Replaces items subset. Arrays allocated for previous subsets are reused, so one analyser can search for
+     * differences many times without allocating its index again
+     * @param baseList - items subset
+     *******************************************************************************************************************
+     */
+    public void setBaseList(Object[] baseList) {
+        if (mItemBaseListIndex == null)
+            mItemBaseListIndex = new ItemBaseListIndex();
+        mItemBaseListIndex.setBaseList(baseList);
+        mBaseListIndex = mItemBaseListIndex;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Replaces items subset by subset of items identified by stable IDs. Arrays allocated for previous subsets are
+     * reused
+     * @param baseListIDs - stable IDs of items subset
+     *******************************************************************************************************************
+     */
+    public void setBaseList(long[] baseListIDs) {
+        if (mItemIDBaseListIndex == null)
+            mItemIDBaseListIndex = new ItemIDBaseListIndex();
+        mItemIDBaseListIndex.setBaseList(baseListIDs);
+        mBaseListIndex = mItemIDBaseListIndex;
     }
 
     /**
@@ -39,138 +144,758 @@ public class DiffAnalyser {
 
     /**
      *******************************************************************************************************************
-     * @return changes list withing subsequence
+     * @return array where change runs are stored. The array is reused by next search, so it is valid only until
+     * analyser is used again
+     *******************************************************************************************************************
+     */
+    public int[] getChangeRuns() {
+        return mChangeRuns;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return number of runs stored in {@link #getChangeRuns()}
+     *******************************************************************************************************************
+     */
+    public int getChangeRunsCount() {
+        return mChangeRunsCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return changes list withing subsequence. Change runs are expanded to atom per item, so the method is intended
+     * for debugging rather than for applying changes
      *******************************************************************************************************************
      */
     public DiffAtom[] getChanges() {
-        return mChanges.toArray(new DiffAtom[mChanges.size()]);
+        int[] changeRuns = mChangeRuns;
+        ArrayList<DiffAtom> changes = new ArrayList<DiffAtom>();
+        for(int counterRun = 0; counterRun < mChangeRunsCount; counterRun++) {
+            int runOffset = counterRun * RUN_SIZE;
+            int listPosition = changeRuns[runOffset + RUN_LIST_POSITION];
+            int adapterPosition = changeRuns[runOffset + RUN_ADAPTER_POSITION];
+            int length = changeRuns[runOffset + RUN_LENGTH];
+            for(int counterItem = 0; counterItem < length; counterItem++)
+                switch (changeRuns[runOffset + RUN_OPERATION]) {
+                    case OPERATION_DELETE:
+                        changes.add(new DeleteDiffAtom(listPosition + counterItem));
+                        break;
+                    case OPERATION_INSERT:
+                        changes.add(new InsertDiffAtom(listPosition + counterItem, adapterPosition + counterItem));
+                        break;
+                    case OPERATION_MOVE:
+                        changes.add(new MoveDiffAtom(listPosition,
+                                changeRuns[runOffset + RUN_NEW_LIST_POSITION],
+                                adapterPosition));
+                        break;
+                    default:
+                        changes.add(new ChangeDiffAtom(listPosition + counterItem, adapterPosition + counterItem));
+                }
+        }
+        return changes.toArray(new DiffAtom[changes.size()]);
     }
 
-    private int findBaseListItemIndex(int startIndex, Object item) {
-        Object[] baseList = mBaseList;
-        int itemsCount = baseList.length;
-        for(int counterItem = startIndex; counterItem < itemsCount; counterItem++)
-            if (baseList[counterItem].equals(item))
-                return counterItem;
-        return -1;
+    /**
+     *******************************************************************************************************************
+     * Enables search for items which stay in place but are changed. Such items are reported by {@link ChangeDiffAtom}
+     * @param baseList - items subset. Items are passed separately because analyser can be created for stable IDs
+     * @param contentComparator - comparator of base list items and adapter items identical to them
+     *******************************************************************************************************************
+     */
+    public void setContentComparator(Object[] baseList, ItemContentComparator contentComparator) {
+        mBaseList = baseList;
+        mContentComparator = contentComparator;
     }
 
     /**
      *******************************************************************************************************************
-     * Looks for subset in {@code adapter} set.
-     * @param adapter - adapter where items are found
-     * @return array of first adapter indices corresponding found subsets or empty list if no items from the subset were
-     * found in {@code adapter}
+     * Sets maximum number of insertions and deletions the analyser looks for. If more changes are needed no change is
+     * reported and {@link #isCostLimitExceeded()} returns {@code true}
      *******************************************************************************************************************
      */
-    private int[] findBaseListPositionInAdapter(Adapter adapter) {
-        ArrayList<Integer> adapterPositionsMax = new ArrayList<Integer>();
-        int metricsMax = 0;
+    public void setCostLimit(int costLimit) {
+        mCostLimit = costLimit;
+    }
+
+    public int getCostLimit() {
+        return mCostLimit;
+    }
 
-        int adapterItemsCount = adapter.getCount();
-        int baseListItemsCount = mBaseList.length;
-        for(int counterAdapterItem = 0; counterAdapterItem < adapterItemsCount; counterAdapterItem++) {
-            Object adapterItem = adapter.getItem(counterAdapterItem);
-            int baseListItemIndex = findBaseListItemIndex(0, adapterItem);
-            if (baseListItemIndex == -1)
+    /**
+     *******************************************************************************************************************
+     * @return {@code true} if the last search was stopped because cost limit was exceeded
+     *******************************************************************************************************************
+     */
+    public boolean isCostLimitExceeded() {
+        return mIsCostLimitExceeded;
+    }
+
+    protected int getBaseListItemsCount() {
+        return mBaseListIndex.getItemsCount();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return number of adapter items which are present in base list
+     *******************************************************************************************************************
+     */
+    protected int getMatchesCount() {
+        return mMatchesCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @param matchIndex - index of adapter item among items present in base list
+     * @return adapter position of the item. Positions grow with {@code matchIndex}
+     *******************************************************************************************************************
+     */
+    protected int getMatchAdapterPosition(int matchIndex) {
+        return mMatchAdapterPositions[matchIndex];
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @param matchIndex - index of adapter item among items present in base list
+     * @return ascending positions of base list items which are equal to the adapter item
+     *******************************************************************************************************************
+     */
+    protected int[] getMatchBaseListPositions(int matchIndex) {
+        return mMatchBaseListPositions[matchIndex];
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @param startIndex - base list index where search is started from
+     * @param itemPositions - ascending positions of an item in base list
+     * @return first position from {@code itemPositions} which is not less than {@code startIndex} or -1 if there is
+     * no such position
+     *******************************************************************************************************************
+     */
+    protected static int findBaseListItemIndex(int startIndex, int[] itemPositions) {
+        int positionIndex = Arrays.binarySearch(itemPositions, startIndex);
+        if (positionIndex < 0)
+            positionIndex = -positionIndex - 1;
+
+        if (positionIndex < itemPositions.length)
+            return itemPositions[positionIndex];
+        else
+            return -1;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Collects ascending positions of {@code itemSource} items which are present in base list. Every item (or its ID)
+     * is requested only once and is looked up in base list index. Matches are appended to ones found before, so
+     * {@code startPosition} has to be greater than positions scanned before
+     * @param itemSource - items where base list items are found
+     * @param startPosition - first position being scanned
+     * @param endPosition - position after the last one being scanned
+     *******************************************************************************************************************
+     */
+    private void findAdapterMatches(ItemSource itemSource, int startPosition, int endPosition) {
+        BaseListIndex baseListIndex = mBaseListIndex;
+        int[] matchAdapterPositions = mMatchAdapterPositions;
+        int[][] matchBaseListPositions = mMatchBaseListPositions;
+        int matchesCount = mMatchesCount;
+
+        for(int counterAdapterItem = startPosition; counterAdapterItem < endPosition; counterAdapterItem++) {
+            int[] baseListPositions = baseListIndex.findPositions(itemSource, counterAdapterItem);
+            if (baseListPositions == null)
                 continue;
 
-            int metricsCurrent = 1;
-            int counterBaseListItem = baseListItemIndex + 1;
-            int counterAdapterSubsetItem = counterAdapterItem + 1;
-            while (  counterBaseListItem < baseListItemsCount
-                  && counterAdapterSubsetItem - counterAdapterItem < baseListItemsCount
-                  && counterAdapterSubsetItem < adapterItemsCount) {
-                adapterItem = adapter.getItem(counterAdapterSubsetItem);
-                baseListItemIndex = findBaseListItemIndex(counterBaseListItem, adapterItem);
-
-                if (baseListItemIndex != -1) {
-                    counterBaseListItem = baseListItemIndex + 1;
-                    metricsCurrent++;
+            if (matchesCount == matchAdapterPositions.length) {
+                int[] newMatchAdapterPositions = new int[matchesCount * 2];
+                System.arraycopy(matchAdapterPositions, 0, newMatchAdapterPositions, 0, matchesCount);
+                matchAdapterPositions = newMatchAdapterPositions;
+
+                int[][] newMatchBaseListPositions = new int[matchesCount * 2][];
+                System.arraycopy(matchBaseListPositions, 0, newMatchBaseListPositions, 0, matchesCount);
+                matchBaseListPositions = newMatchBaseListPositions;
+            }
+            matchAdapterPositions[matchesCount] = counterAdapterItem;
+            matchBaseListPositions[matchesCount] = baseListPositions;
+            matchesCount++;
+        }
+
+        mMatchesCount = matchesCount;
+        mMatchAdapterPositions = matchAdapterPositions;
+        mMatchBaseListPositions = matchBaseListPositions;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Looks for base list items which stay in place. Items are searched among adapter items matched with base list.
+     * @param pivotBaseListPositions - array where ascending base list positions of pivots are stored. Array length is
+     * not less than base list length
+     * @param pivotAdapterPositions - array where ascending adapter positions of pivots are stored. Array length is
+     * not less than base list length
+     * @return number of pivots found or {@link #COST_LIMIT_EXCEEDED} if search is stopped because pivots would produce
+     * more changes than {@link #getCostLimit()}
+     *******************************************************************************************************************
+     */
+    protected abstract int onFindPivots(int[] pivotBaseListPositions, int[] pivotAdapterPositions);
+
+    /**
+     *******************************************************************************************************************
+     * Looks for differences between subset of items and corresponding item subset stored as part of
+     * {@code itemSource}. Items are called adapter items below
+     * @param itemSource - items where base list items are found
+     *******************************************************************************************************************
+     */
+    public void findDiff(ItemSource itemSource) {
+        mMatchesCount = 0;
+        findAdapterMatches(itemSource, 0, itemSource.getCount());
+        findChanges(itemSource);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Looks for differences between subset of items and corresponding item subset stored as part of {@code items}.
+     * Items are compared by {@link Object#equals(Object)}, so the analyser must be created for items rather than for
+     * stable IDs. The method does not touch any adapter, so it can be invoked from a background thread when
+     * {@code items} is not modified meanwhile.
+     * @param items - list where items are found
+     * @param windowCenter - list position where the subset is expected
+     * @param windowRadius - initial number of list items scanned on each side of {@code windowCenter}
+     *******************************************************************************************************************
+     */
+    public void findDiff(List<?> items, int windowCenter, int windowRadius) {
+        findDiff(new ListItemSource(items), windowCenter, windowRadius);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Looks for differences between subset of items and corresponding item subset stored as part of
+     * {@code itemSource} near specific position. Search window is doubled until any subset item is found or the window
+     * covers all items, so the search cost depends on subset length rather than on items count.
+     * @param itemSource - items where base list items are found
+     * @param windowCenter - position where the subset is expected
+     * @param windowRadius - initial number of items scanned on each side of {@code windowCenter}
+     *******************************************************************************************************************
+     */
+    public void findDiff(ItemSource itemSource, int windowCenter, int windowRadius) {
+        int adapterItemsCount = itemSource.getCount();
+        windowCenter = Math.max(0, Math.min(windowCenter, adapterItemsCount));
+        windowRadius = Math.max(1, windowRadius);
+
+        // Window is extended only while no match is found, so only new parts of window are scanned and every item
+        // is requested once
+        mMatchesCount = 0;
+        int scannedStartPosition = windowCenter;
+        int scannedEndPosition = windowCenter;
+        while (true) {
+            int startPosition = Math.max(0, windowCenter - windowRadius);
+            int endPosition = Math.min(adapterItemsCount, windowCenter + windowRadius);
+            findAdapterMatches(itemSource, startPosition, scannedStartPosition);
+            findAdapterMatches(itemSource, scannedEndPosition, endPosition);
+            scannedStartPosition = startPosition;
+            scannedEndPosition = endPosition;
+
+            if (  mMatchesCount != 0
+               || mBaseListIndex.getItemsCount() == 0
+               || (startPosition == 0 && endPosition == adapterItemsCount))
+                break;
+            windowRadius = Math.min(windowRadius * 2, adapterItemsCount);
+        }
+        findChanges(itemSource);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Translates pivots found among adapter items matched to list of changes
+     *******************************************************************************************************************
+     */
+    private void findChanges(ItemSource itemSource) {
+        int baseListItemsCount = mBaseListIndex.getItemsCount();
+        int[] pivotBaseListPositions = ensureCapacity(mPivotBaseListPositions, baseListItemsCount);
+        int[] pivotAdapterPositions = ensureCapacity(mPivotAdapterPositions, baseListItemsCount);
+        mPivotBaseListPositions = pivotBaseListPositions;
+        mPivotAdapterPositions = pivotAdapterPositions;
+
+        int pivotsCount = onFindPivots(pivotBaseListPositions, pivotAdapterPositions);
+
+        mChangeRunsCount = 0;
+        mIsCostLimitExceeded = pivotsCount == COST_LIMIT_EXCEEDED
+                || computeChangesCount(pivotAdapterPositions, pivotsCount) > mCostLimit;
+        if (mIsCostLimitExceeded) {
+            mSubsetOffset = -1;
+            return;
+        }
+
+        if (pivotsCount == 0) {
+            mSubsetOffset = 0;
+            if (baseListItemsCount != 0)
+                addChangeRun(OPERATION_DELETE, 0, -1, baseListItemsCount, -1);
+            return;
+        }
+
+        int[] subsetBounds = mSubsetBounds;
+        int[] movedBaseListPositions = findMovedItems(pivotBaseListPositions,
+                pivotAdapterPositions,
+                pivotsCount,
+                subsetBounds);
+        int movedOffset = subsetBounds[2];
+        boolean[] isBaseListItemMoved = ensureCapacity(mIsBaseListItemMoved, baseListItemsCount);
+        mIsBaseListItemMoved = isBaseListItemMoved;
+        Arrays.fill(isBaseListItemMoved, 0, baseListItemsCount, false);
+        for(int counterAdapter = subsetBounds[0]; counterAdapter < subsetBounds[1]; counterAdapter++) {
+            int movedBaseListPosition = movedBaseListPositions[counterAdapter - movedOffset];
+            if (movedBaseListPosition != -1)
+                isBaseListItemMoved[movedBaseListPosition] = true;
+        }
+        int[] listPositions = ensureCapacity(mListPositions, baseListItemsCount); // List positions of base list items
+        mListPositions = listPositions;                                           // which are passed
+
+        // Subset bounds are handled as pivots placed before the first base list item and after the last one, so items
+        // moved to the head or to the tail of the subset are handled as items moved between pivots
+        int baseListStartPivot = -1;
+        int adapterStartPivot = subsetBounds[0] - 1;
+        mSubsetOffset = subsetBounds[0];
+
+        int insertOffset = 0;
+        for(int counterPivot = 0; counterPivot <= pivotsCount; counterPivot++) {
+            boolean isSubsetEnd = counterPivot == pivotsCount;
+            int baseListEndPivot = isSubsetEnd ? baseListItemsCount : pivotBaseListPositions[counterPivot];
+            int adapterEndPivot = isSubsetEnd ? subsetBounds[1] : pivotAdapterPositions[counterPivot];
+
+            for(int counterBaseList = baseListStartPivot + 1; counterBaseList < baseListEndPivot; counterBaseList++) {
+                listPositions[counterBaseList] = counterBaseList + insertOffset;
+                if (!isBaseListItemMoved[counterBaseList])
+                    addChange(OPERATION_DELETE, counterBaseList + insertOffset, -1, -1);
+            }
+            baseListStartPivot = baseListEndPivot;
+
+            for(int counterAdapter = adapterStartPivot + 1; counterAdapter < adapterEndPivot; counterAdapter++) {
+                int listInsertionPosition = baseListEndPivot + insertOffset;
+                int movedBaseListPosition = movedBaseListPositions[counterAdapter - movedOffset];
+                if (movedBaseListPosition == -1)
+                    addChange(OPERATION_INSERT, listInsertionPosition, counterAdapter, -1);
+                else {
+                    int listPosition;
+                    if (movedBaseListPosition < baseListEndPivot)
+                        listPosition = listPositions[movedBaseListPosition];
+                    else
+                        listPosition = movedBaseListPosition + insertOffset;
+                    addChange(OPERATION_MOVE, listPosition, counterAdapter, listInsertionPosition);
+                    checkContentChange(itemSource, movedBaseListPosition, counterAdapter, listInsertionPosition);
                 }
+                insertOffset++;
+            }
+            adapterStartPivot = adapterEndPivot;
+            if (!isSubsetEnd)
+                checkContentChange(itemSource, baseListEndPivot, adapterEndPivot, baseListEndPivot + insertOffset);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Adds {@link ChangeDiffAtom} if content of base list item differs from content of adapter item identical to it
+     * @param listPosition - position of the item in list being changed when preceding changes are applied
+     *******************************************************************************************************************
+     */
+    private void checkContentChange(ItemSource itemSource,
+            int baseListPosition,
+            int adapterPosition,
+            int listPosition) {
+        ItemContentComparator contentComparator = mContentComparator;
+        if (contentComparator == null)
+            return;
+
+        if (!contentComparator.areContentsTheSame(mBaseList[baseListPosition], itemSource.getItem(adapterPosition)))
+            addChange(OPERATION_CHANGE, listPosition, adapterPosition, -1);
+    }
 
-                counterAdapterSubsetItem++;
+    /**
+     *******************************************************************************************************************
+     * Adds change of single item. The change extends the last run if it continues the run
+     *******************************************************************************************************************
+     */
+    private void addChange(int operation, int listPosition, int adapterPosition, int newListPosition) {
+        int changeRunsCount = mChangeRunsCount;
+        if (changeRunsCount != 0 && operation != OPERATION_MOVE) {
+            int[] changeRuns = mChangeRuns;
+            int runOffset = (changeRunsCount - 1) * RUN_SIZE;
+            int length = changeRuns[runOffset + RUN_LENGTH];
+            if (  changeRuns[runOffset + RUN_OPERATION] == operation
+               && changeRuns[runOffset + RUN_LIST_POSITION] + length == listPosition
+               && (  operation == OPERATION_DELETE
+                  || changeRuns[runOffset + RUN_ADAPTER_POSITION] + length == adapterPosition)) {
+                changeRuns[runOffset + RUN_LENGTH] = length + 1;
+                return;
             }
+        }
+        addChangeRun(operation, listPosition, adapterPosition, 1, newListPosition);
+    }
 
-            if (metricsCurrent > metricsMax) {
-                metricsMax = metricsCurrent;
-                adapterPositionsMax.clear();
-                adapterPositionsMax.add(counterAdapterItem);
-            } else if(metricsCurrent == metricsMax)
-                adapterPositionsMax.add(counterAdapterItem);
+    private void addChangeRun(int operation, int listPosition, int adapterPosition, int length, int newListPosition) {
+        int[] changeRuns = mChangeRuns;
+        int runOffset = mChangeRunsCount * RUN_SIZE;
+        if (runOffset == changeRuns.length) {
+            int[] newChangeRuns = new int[runOffset * 2];
+            System.arraycopy(changeRuns, 0, newChangeRuns, 0, runOffset);
+            changeRuns = newChangeRuns;
+            mChangeRuns = changeRuns;
         }
 
-        int[] adapterPositionsMaxArray = new int[adapterPositionsMax.size()];
-        for(int counterPosition = 0; counterPosition < adapterPositionsMaxArray.length; counterPosition++ )
-            adapterPositionsMaxArray[counterPosition] = adapterPositionsMax.get(counterPosition);
-        return adapterPositionsMaxArray;
+        changeRuns[runOffset + RUN_OPERATION] = operation;
+        changeRuns[runOffset + RUN_LIST_POSITION] = listPosition;
+        changeRuns[runOffset + RUN_ADAPTER_POSITION] = adapterPosition;
+        changeRuns[runOffset + RUN_LENGTH] = length;
+        changeRuns[runOffset + RUN_NEW_LIST_POSITION] = newListPosition;
+        mChangeRunsCount++;
     }
 
     /**
      *******************************************************************************************************************
-     * Looks for differences between subset of items and corresponding item subset stored as part
-     * of {@code adapter}
-     * @param adapter - adapter where items are found
+     * @return {@code array} if it can hold {@code capacity} elements or a new array which can. Elements are not copied
      *******************************************************************************************************************
      */
-    public void findDiff(Adapter adapter) {
-        ArrayList<DiffAtom> changesMin = mChanges;
-        changesMin.clear();
-        int metricsMin = Integer.MAX_VALUE;
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        if (array.length >= capacity)
+            return array;
+        return new int[Math.max(capacity, array.length * 2)];
+    }
 
-        Object[] baseList = mBaseList;
-        int baseListItemsCount = baseList.length;
+    private static boolean[] ensureCapacity(boolean[] array, int capacity) {
+        if (array.length >= capacity)
+            return array;
+        return new boolean[Math.max(capacity, array.length * 2)];
+    }
 
-        int adapterItemsCount = adapter.getCount();
-        int[] adapterPositions = findBaseListPositionInAdapter(adapter);
+    /**
+     *******************************************************************************************************************
+     * Marks the first base list item equal to adapter item which is neither pivot nor moved yet as moved
+     * @return base list position of the item or -1 if there is no such item
+     *******************************************************************************************************************
+     */
+    private static int useBaseListItem(int[] baseListPositions, boolean[] isBaseListItemUsed) {
+        for(int baseListPosition : baseListPositions)
+            if (!isBaseListItemUsed[baseListPosition]) {
+                isBaseListItemUsed[baseListPosition] = true;
+                return baseListPosition;
+            }
+        return -1;
+    }
 
-        if (adapterPositions.length == 0) {
-            mSubsetOffset = 0;
-            for(int counterBaseList = 0; counterBaseList < baseListItemsCount; counterBaseList++)
-                changesMin.add(new DeleteDiffAtom(counterBaseList));
-        } else
-            for(int firstAdapterPosition : adapterPositions) {
-                ArrayList<DiffAtom> changes = new ArrayList<DiffAtom>();
-
-                Object adapterItem = adapter.getItem(firstAdapterPosition);
-                int baseListStartPivot = findBaseListItemIndex(0, adapterItem);
-
-                for(int counterBaseList = 0; counterBaseList < baseListStartPivot; counterBaseList++)
-                    changes.add(new DeleteDiffAtom(counterBaseList));
-
-                int adapterStartPivot = firstAdapterPosition;
-                int adapterEndPivot = adapterStartPivot + 1;
-                int insertOffset = 0;
-                while (adapterEndPivot < adapterItemsCount) {
-                    adapterItem = adapter.getItem(adapterEndPivot);
-                    int baseListEndPivot = findBaseListItemIndex(baseListStartPivot + 1, adapterItem);
-
-                    if (baseListEndPivot != -1) {
-                        for(int counterBaseList = baseListStartPivot + 1; counterBaseList < baseListEndPivot; counterBaseList++)
-                            changes.add(new DeleteDiffAtom(counterBaseList + insertOffset));
-                        baseListStartPivot = baseListEndPivot;
-
-                        for(int counterAdapter = adapterStartPivot + 1; counterAdapter < adapterEndPivot; counterAdapter++) {
-                            int listInsertionPosition = baseListEndPivot + insertOffset;
-                            changes.add(new InsertDiffAtom(listInsertionPosition, counterAdapter));
-                            insertOffset++;
-                        }
-                        adapterStartPivot = adapterEndPivot;
+    /**
+     *******************************************************************************************************************
+     * Looks for adapter items equal to base list items being deleted. Such items are moved rather than deleted and
+     * inserted again. Items are searched between pivots and in boundary segments before the first pivot and after the
+     * last one. Boundary segments are not longer than number of base list items which are not pivots, because items
+     * can not be moved further
+     * @param subsetBounds - array where the first adapter position of subset, the position after the last one and
+     * adapter position of the first element of returned array are stored. Subset is extended from pivots to the
+     * outermost items moved to boundary segments
+     * @return array where base list position of moved item or -1 if adapter item is not moved is stored for every
+     * adapter position of subset. The array is reused by next search
+     *******************************************************************************************************************
+     */
+    private int[] findMovedItems(int[] pivotBaseListPositions,
+            int[] pivotAdapterPositions,
+            int pivotsCount,
+            int[] subsetBounds) {
+        int baseListItemsCount = mBaseListIndex.getItemsCount();
+        boolean[] isBaseListItemUsed = ensureCapacity(mIsBaseListItemUsed, baseListItemsCount);
+        mIsBaseListItemUsed = isBaseListItemUsed;
+        Arrays.fill(isBaseListItemUsed, 0, baseListItemsCount, false);
+        for(int counterPivot = 0; counterPivot < pivotsCount; counterPivot++)
+            isBaseListItemUsed[pivotBaseListPositions[counterPivot]] = true;
+
+        int firstAdapterPivot = pivotAdapterPositions[0];
+        int lastAdapterPivot = pivotAdapterPositions[pivotsCount - 1];
+        int shiftMax = baseListItemsCount - pivotsCount;
+        int[] matchAdapterPositions = mMatchAdapterPositions;
+        int[][] matchBaseListPositions = mMatchBaseListPositions;
+        int matchesCount = mMatchesCount;
+        int firstMatch = Arrays.binarySearch(matchAdapterPositions, 0, matchesCount, firstAdapterPivot);
+        int lastMatch = Arrays.binarySearch(matchAdapterPositions, 0, matchesCount, lastAdapterPivot);
+        int headMatch = firstMatch;
+        while (headMatch > 0 && matchAdapterPositions[headMatch - 1] >= firstAdapterPivot - shiftMax)
+            headMatch--;
+        int tailMatch = lastMatch;
+        while (tailMatch < matchesCount - 1 && matchAdapterPositions[tailMatch + 1] <= lastAdapterPivot + shiftMax)
+            tailMatch++;
+
+        int adapterStart = matchAdapterPositions[headMatch];
+        int movedItemsCount = matchAdapterPositions[tailMatch] - adapterStart + 1;
+        int[] movedBaseListPositions = ensureCapacity(mMovedBaseListPositions, movedItemsCount);
+        mMovedBaseListPositions = movedBaseListPositions;
+        Arrays.fill(movedBaseListPositions, 0, movedItemsCount, -1);
+
+        int counterPivot = 1;
+        for(int counterMatch = firstMatch + 1; counterMatch < lastMatch; counterMatch++) {
+            int adapterPosition = matchAdapterPositions[counterMatch];
+            if (adapterPosition == pivotAdapterPositions[counterPivot]) {
+                counterPivot++;
+                continue;
+            }
+
+            movedBaseListPositions[adapterPosition - adapterStart] = useBaseListItem(
+                    matchBaseListPositions[counterMatch], isBaseListItemUsed);
+        }
+
+        int subsetEnd = lastAdapterPivot + 1; // Boundary items nearest to pivots are moved first
+        for(int counterMatch = lastMatch + 1; counterMatch <= tailMatch; counterMatch++) {
+            int adapterPosition = matchAdapterPositions[counterMatch];
+            int baseListPosition = useBaseListItem(matchBaseListPositions[counterMatch], isBaseListItemUsed);
+            movedBaseListPositions[adapterPosition - adapterStart] = baseListPosition;
+            if (baseListPosition != -1)
+                subsetEnd = adapterPosition + 1;
+        }
+        int subsetStart = firstAdapterPivot;
+        for(int counterMatch = firstMatch - 1; counterMatch >= headMatch; counterMatch--) {
+            int adapterPosition = matchAdapterPositions[counterMatch];
+            int baseListPosition = useBaseListItem(matchBaseListPositions[counterMatch], isBaseListItemUsed);
+            movedBaseListPositions[adapterPosition - adapterStart] = baseListPosition;
+            if (baseListPosition != -1)
+                subsetStart = adapterPosition;
+        }
+
+        subsetBounds[0] = subsetStart;
+        subsetBounds[1] = subsetEnd;
+        subsetBounds[2] = adapterStart;
+        return movedBaseListPositions;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return number of changes produced by {@link #findDiff(ItemSource)} for specific pivots
+     *******************************************************************************************************************
+     */
+    protected int computeChangesCount(int[] pivotAdapterPositions, int pivotsCount) {
+        int baseListItemsCount = mBaseListIndex.getItemsCount();
+        if (pivotsCount == 0)
+            return baseListItemsCount;
+
+        int deletionsCount = baseListItemsCount - pivotsCount;
+        int insertionsCount = pivotAdapterPositions[pivotsCount - 1] - pivotAdapterPositions[0] + 1 - pivotsCount;
+        return deletionsCount + insertionsCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Index which maps adapter item to positions of equal items in base list
+     *******************************************************************************************************************
+     */
+    private static abstract class BaseListIndex {
+        public abstract int getItemsCount();
+
+        /**
+         ***************************************************************************************************************
+         * @return ascending positions of base list items equal to adapter item or {@code null} if there are no such
+         * items
+         ***************************************************************************************************************
+         */
+        public abstract int[] findPositions(ItemSource itemSource, int position);
+
+        protected static int[] ensureCapacity(int[] array, int capacity) {
+            if (array.length < capacity)
+                return new int[capacity];
+            else
+                return array;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Collects ascending base list positions of every group of equal items
+         * @param itemGroups - group index of every base list item
+         * @return array where positions of group items are stored for every group
+         ***************************************************************************************************************
+         */
+        protected static int[][] collectGroupPositions(int[] itemGroups,
+                int itemsCount,
+                int groupsCount,
+                int[][] groupPositions,
+                int[] groupSizes) {
+            if (groupPositions.length < groupsCount)
+                groupPositions = new int[itemsCount][];
+
+            Arrays.fill(groupSizes, 0, groupsCount, 0);
+            for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+                groupSizes[itemGroups[counterItem]]++;
+            for(int counterGroup = 0; counterGroup < groupsCount; counterGroup++) {
+                groupPositions[counterGroup] = new int[groupSizes[counterGroup]];
+                groupSizes[counterGroup] = 0;
+            }
+            for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+                int group = itemGroups[counterItem];
+                groupPositions[group][groupSizes[group]] = counterItem;
+                groupSizes[group]++;
+            }
+            Arrays.fill(groupPositions, groupsCount, groupPositions.length, null);
+            return groupPositions;
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Index of base list items compared by {@link Object#equals(Object)}. Hash code of every base list item is computed
+     * once and is kept in primitive array with open addressing hash table of groups of equal items. Adapter item hash
+     * code is computed once per lookup and {@link Object#equals(Object)} is invoked only for items with equal hash
+     * codes. Arrays are reused when base list is replaced.
+     *******************************************************************************************************************
+     */
+    private static class ItemBaseListIndex extends BaseListIndex {
+        private Object[] mBaseList;
+        private int mItemsCount;
+        private int[] mItemHashes = new int[0];
+        private int[] mItemGroups = new int[0];
+
+        private int[] mTableGroups = new int[0]; // Group index + 1 or 0 if table slot is free
+        private int mTableMask;
+
+        private int[] mGroupFirstItems = new int[0];
+        private int[] mGroupSizes = new int[0];
+        private int[][] mGroupPositions = new int[0][];
+
+        private static final int TABLE_MIN_SIZE = 8;
+
+        private static int hash(Object item) {
+            if (item == null)
+                return 0;
+
+            int hash = item.hashCode();
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean areItemsEqual(Object item1, Object item2) {
+            return item1 == item2 || (item1 != null && item1.equals(item2));
+        }
+
+        public void setBaseList(Object[] baseList) {
+            int itemsCount = baseList.length;
+            int[] itemHashes = ensureCapacity(mItemHashes, itemsCount);
+            int[] itemGroups = ensureCapacity(mItemGroups, itemsCount);
+            int[] groupFirstItems = ensureCapacity(mGroupFirstItems, itemsCount);
+
+            int tableSize = TABLE_MIN_SIZE;
+            while (tableSize < itemsCount * 2)
+                tableSize *= 2;
+            int[] tableGroups = ensureCapacity(mTableGroups, tableSize);
+            Arrays.fill(tableGroups, 0, tableSize, 0);
+            int tableMask = tableSize - 1;
+
+            int groupsCount = 0;
+            for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+                Object item = baseList[counterItem];
+                int itemHash = hash(item);
+                itemHashes[counterItem] = itemHash;
+
+                int slot = itemHash & tableMask;
+                while (true) {
+                    int group = tableGroups[slot] - 1;
+                    if (group == -1) { // Item is met first time
+                        tableGroups[slot] = groupsCount + 1;
+                        groupFirstItems[groupsCount] = counterItem;
+                        itemGroups[counterItem] = groupsCount;
+                        groupsCount++;
+                        break;
                     }
 
-                    adapterEndPivot++;
+                    int groupFirstItem = groupFirstItems[group];
+                    if (  itemHashes[groupFirstItem] == itemHash
+                       && areItemsEqual(baseList[groupFirstItem], item)) {
+                        itemGroups[counterItem] = group;
+                        break;
+                    }
+                    slot = (slot + 1) & tableMask;
                 }
+            }
 
-                for(int counterBaseList = baseListStartPivot + 1; counterBaseList < baseListItemsCount; counterBaseList++)
-                    changes.add(new DeleteDiffAtom(counterBaseList + insertOffset));
+            mGroupSizes = ensureCapacity(mGroupSizes, itemsCount);
+            mGroupPositions = collectGroupPositions(itemGroups, itemsCount, groupsCount, mGroupPositions, mGroupSizes);
 
-                int changesCount = changes.size();
-                if (changesCount < metricsMin) {
-                    mSubsetOffset = firstAdapterPosition;
-                    metricsMin = changesCount;
-                    changesMin.clear();
-                    changesMin.addAll(changes);
-                }
+            mBaseList = baseList;
+            mItemsCount = itemsCount;
+            mItemHashes = itemHashes;
+            mItemGroups = itemGroups;
+            mTableGroups = tableGroups;
+            mTableMask = tableMask;
+            mGroupFirstItems = groupFirstItems;
+        }
+
+        @Override
+        public int getItemsCount() {
+            return mItemsCount;
+        }
+
+        @Override
+        public int[] findPositions(ItemSource itemSource, int position) {
+            Object item = itemSource.getItem(position);
+            int itemHash = hash(item);
+
+            int[] tableGroups = mTableGroups;
+            int tableMask = mTableMask;
+            int slot = itemHash & tableMask;
+            while (true) {
+                int group = tableGroups[slot] - 1;
+                if (group == -1)
+                    return null;
+
+                int groupFirstItem = mGroupFirstItems[group];
+                if (  mItemHashes[groupFirstItem] == itemHash
+                   && areItemsEqual(mBaseList[groupFirstItem], item))
+                    return mGroupPositions[group];
+                slot = (slot + 1) & tableMask;
             }
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Index of base list items compared by stable IDs. IDs are kept sorted in primitive array and are looked up by
+     * binary search. Arrays are reused when base list is replaced.
+     *******************************************************************************************************************
+     */
+    private static class ItemIDBaseListIndex extends BaseListIndex {
+        private int mItemsCount;
+        private long[] mItemIDs = new long[0];
+        private int mItemIDsCount;
+        private int[] mItemGroups = new int[0];
+        private int[] mGroupSizes = new int[0];
+        private int[][] mPositions = new int[0][];
+
+        public void setBaseList(long[] baseListIDs) {
+            int itemsCount = baseListIDs.length;
+            long[] itemIDs = mItemIDs;
+            if (itemIDs.length < itemsCount)
+                itemIDs = new long[itemsCount];
+            System.arraycopy(baseListIDs, 0, itemIDs, 0, itemsCount);
+            Arrays.sort(itemIDs, 0, itemsCount);
+
+            int uniqueItemIDsCount = 0;
+            for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+                if (  uniqueItemIDsCount == 0
+                   || itemIDs[uniqueItemIDsCount - 1] != itemIDs[counterItem]) {
+                    itemIDs[uniqueItemIDsCount] = itemIDs[counterItem];
+                    uniqueItemIDsCount++;
+                }
+
+            int[] itemGroups = ensureCapacity(mItemGroups, itemsCount);
+            for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+                itemGroups[counterItem] = Arrays.binarySearch(itemIDs, 0, uniqueItemIDsCount, baseListIDs[counterItem]);
+
+            mGroupSizes = ensureCapacity(mGroupSizes, itemsCount);
+            mPositions = collectGroupPositions(itemGroups, itemsCount, uniqueItemIDsCount, mPositions, mGroupSizes);
+
+            mItemsCount = itemsCount;
+            mItemIDs = itemIDs;
+            mItemIDsCount = uniqueItemIDsCount;
+            mItemGroups = itemGroups;
+        }
+
+        @Override
+        public int getItemsCount() {
+            return mItemsCount;
+        }
+
+        @Override
+        public int[] findPositions(ItemSource itemSource, int position) {
+            int itemIDIndex = Arrays.binarySearch(mItemIDs, 0, mItemIDsCount, itemSource.getItemID(position));
+            if (itemIDIndex < 0)
+                return null;
+            else
+                return mPositions[itemIDIndex];
+        }
     }
 }
@@ -0,0 +1,78 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+/**
+ ***********************************************************************************************************************
+ * Enumerates algorithms which can be used to search for differences between displayed items and adapter items
+ ***********************************************************************************************************************
+ */
+public enum DiffStrategy {
+    /**
+     * Greedy search from the best anchors. It is fast for short lists with few duplicate items
+     */
+    ANCHOR {
+        @Override
+        public DiffAnalyser createAnalyser(Object[] baseList) {
+            return new AnchorDiffAnalyser(baseList);
+        }
+
+        @Override
+        public DiffAnalyser createAnalyser(long[] baseListIDs) {
+            return new AnchorDiffAnalyser(baseListIDs);
+        }
+
+        @Override
+        public DiffAnalyser createAnalyser() {
+            return new AnchorDiffAnalyser();
+        }
+    },
+    /**
+     * Shortest edit script search by Myers' algorithm. It is preferable for large lists and lists with many equal
+     * candidate anchors
+     */
+    MYERS {
+        @Override
+        public DiffAnalyser createAnalyser(Object[] baseList) {
+            return new MyersDiffAnalyser(baseList);
+        }
+
+        @Override
+        public DiffAnalyser createAnalyser(long[] baseListIDs) {
+            return new MyersDiffAnalyser(baseListIDs);
+        }
+
+        @Override
+        public DiffAnalyser createAnalyser() {
+            return new MyersDiffAnalyser();
+        }
+    },
+    /**
+     * Myers' algorithm run in parallel between unique items which keep their order. It is designed for very large
+     * lists. The script found may be longer than the shortest one if unique items are not a part of it. It requires API
+     * level 21, so list views replace it with {@link #MYERS} on older devices
+     */
+    PARALLEL {
+        @Override
+        public DiffAnalyser createAnalyser(Object[] baseList) {
+            return new ParallelDiffAnalyser(ParallelDiffAnalyser.getDefaultPool(), baseList);
+        }
+
+        @Override
+        public DiffAnalyser createAnalyser(long[] baseListIDs) {
+            return new ParallelDiffAnalyser(ParallelDiffAnalyser.getDefaultPool(), baseListIDs);
+        }
+
+        @Override
+        public DiffAnalyser createAnalyser() {
+            return new ParallelDiffAnalyser(ParallelDiffAnalyser.getDefaultPool());
+        }
+    };
+
+    public abstract DiffAnalyser createAnalyser(Object[] baseList);
+
+    public abstract DiffAnalyser createAnalyser(long[] baseListIDs);
+
+    /**
+     * Creates analyser for empty base list which is set later and can be replaced between searches
+     */
+    public abstract DiffAnalyser createAnalyser();
+}
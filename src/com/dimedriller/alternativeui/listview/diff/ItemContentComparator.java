@@ -0,0 +1,21 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+/**
+ ***********************************************************************************************************************
+ * Decides whether item which is found in both lists (the same item or item with the same stable ID) has to be
+ * displayed again.
+ * Differences of lists passed to {@code HorizontalListView.submitList()} are searched on background thread, so the
+ * comparator is invoked on that thread as well. It must not touch views and must be safe to call concurrently with UI
+ * thread
+ ***********************************************************************************************************************
+ */
+public interface ItemContentComparator {
+    /**
+     *******************************************************************************************************************
+     * @param oldItem - displayed item
+     * @param newItem - adapter item identical to {@code oldItem}
+     * @return {@code true} if displayed view of {@code oldItem} represents {@code newItem} as well
+     *******************************************************************************************************************
+     */
+    public boolean areContentsTheSame(Object oldItem, Object newItem);
+}
@@ -0,0 +1,20 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+/**
+ ***********************************************************************************************************************
+ * Set of items where {@link DiffAnalyser} looks for its base list. Items can be kept anywhere: in adapter, in list or
+ * in storage of any other kind
+ ***********************************************************************************************************************
+ */
+public interface ItemSource {
+    public int getCount();
+
+    public Object getItem(int position);
+
+    /**
+     *******************************************************************************************************************
+     * @return stable ID of item. It is requested only by analysers created for stable IDs
+     *******************************************************************************************************************
+     */
+    public long getItemID(int position);
+}
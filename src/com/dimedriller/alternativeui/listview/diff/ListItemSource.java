@@ -0,0 +1,31 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+import java.util.List;
+
+/**
+ ***********************************************************************************************************************
+ * Items source backed by list. List items have no stable IDs, so they are compared by {@link Object#equals(Object)}
+ ***********************************************************************************************************************
+ */
+public class ListItemSource implements ItemSource {
+    private final List<?> mItems;
+
+    public ListItemSource(List<?> items) {
+        mItems = items;
+    }
+
+    @Override
+    public int getCount() {
+        return mItems.size();
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return mItems.get(position);
+    }
+
+    @Override
+    public long getItemID(int position) {
+        throw new IllegalStateException("List items have no stable IDs");
+    }
+}
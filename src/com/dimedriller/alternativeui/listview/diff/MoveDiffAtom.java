@@ -0,0 +1,37 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+/**
+ ***********************************************************************************************************************
+ * Shows atomic difference between two lists: element is moved to another position of list. The element leaves gap at
+ * its old position which is handled as deleted element and is inserted to its new position.
+ ***********************************************************************************************************************
+ */
+public class MoveDiffAtom implements DiffAtom {
+    private final int mListPosition;
+    private final int mNewListPosition;
+    private final int mAdapterPosition;
+
+    public MoveDiffAtom(int listPosition, int newListPosition, int adapterPosition) {
+        mListPosition = listPosition;
+        mNewListPosition = newListPosition;
+        mAdapterPosition = adapterPosition;
+    }
+
+    public int getListPosition() {
+        return mListPosition;
+    }
+
+    public int getNewListPosition() {
+        return mNewListPosition;
+    }
+
+    public int getAdapterPosition() {
+        return mAdapterPosition;
+    }
+
+    @Override
+    public String toString() {
+        return "MoveDiffAtom { mListPosition = " + mListPosition + ", mNewListPosition = " + mNewListPosition
+                + ", mAdapterPosition = " + mAdapterPosition + "}";
+    }
+}
@@ -0,0 +1,419 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ ***********************************************************************************************************************
+ * This analyser finds the shortest edit script between base list and adapter items using Myers' O(ND) greedy
+ * algorithm. Adapter items before and after the subset found are free, so the number of edits {@code D} never exceeds
+ * base list length and the script is built in one pass without comparing candidate anchors. Only diagonals reached
+ * by {@code d} edits are kept for every round, so time and memory are O((S + D) * D) where {@code S} is the number of
+ * free adapter items the script can start from. It is 1 if either end of the script is fixed.
+ ***********************************************************************************************************************
+ */
+public class MyersDiffAnalyser extends DiffAnalyser {
+    private int[][] mAdapterItems = new int[0][]; // Reused by next searches
+
+    public MyersDiffAnalyser(Object[] baseList) {
+        super(baseList);
+    }
+
+    public MyersDiffAnalyser(long[] baseListIDs) {
+        super(baseListIDs);
+    }
+
+    public MyersDiffAnalyser() {
+        super();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return number of adapter items between the first and the last match inclusive
+     *******************************************************************************************************************
+     */
+    static int getAdapterItemsCount(DiffAnalyser analyser) {
+        int lastAdapterPosition = analyser.getMatchAdapterPosition(analyser.getMatchesCount() - 1);
+        return lastAdapterPosition - analyser.getMatchAdapterPosition(0) + 1;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Collects base list positions of every adapter item between the first and the last match
+     * @param adapterItems - array used if it is long enough
+     * @return array where ascending base list positions are stored for every adapter position starting from the first
+     * match or {@code null} if adapter item is absent in base list. The array may be longer than number of the items
+     *******************************************************************************************************************
+     */
+    static int[][] collectAdapterItems(DiffAnalyser analyser, int[][] adapterItems) {
+        int matchesCount = analyser.getMatchesCount();
+        int adapterOffset = analyser.getMatchAdapterPosition(0);
+        int adapterItemsCount = getAdapterItemsCount(analyser);
+        if (adapterItems.length < adapterItemsCount)
+            adapterItems = new int[Math.max(adapterItemsCount, adapterItems.length * 2)][];
+        else
+            Arrays.fill(adapterItems, 0, adapterItemsCount, null);
+        for(int counterMatch = 0; counterMatch < matchesCount; counterMatch++) {
+            int adapterItemIndex = analyser.getMatchAdapterPosition(counterMatch) - adapterOffset;
+            adapterItems[adapterItemIndex] = analyser.getMatchBaseListPositions(counterMatch);
+        }
+        return adapterItems;
+    }
+
+    @Override
+    protected int onFindPivots(int[] pivotBaseListPositions, int[] pivotAdapterPositions) {
+        int matchesCount = getMatchesCount();
+        if (matchesCount == 0)
+            return 0;
+
+        // Only adapter items between the first and the last match can be part of the script
+        int[][] adapterItems = collectAdapterItems(this, mAdapterItems);
+        mAdapterItems = adapterItems;
+        int adapterOffset = getMatchAdapterPosition(0);
+        EditGraph graph = new EditGraph(adapterItems, adapterOffset);
+        return graph.findPivots(0,
+                getBaseListItemsCount(),
+                adapterOffset,
+                adapterOffset + getAdapterItemsCount(this),
+                true,
+                true,
+                getCostLimit(),
+                pivotBaseListPositions,
+                pivotAdapterPositions,
+                0);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Edit graph of base list and adapter items. The shortest edit script can be searched for any rectangle of the
+     * graph, so independent parts of the graph can be processed in parallel
+     *******************************************************************************************************************
+     */
+    static class EditGraph {
+        private final int[][] mAdapterItems;
+        private final int mAdapterOffset;
+
+        /**
+         ***************************************************************************************************************
+         * @param adapterItems - ascending base list positions of every adapter item or {@code null} if adapter item is
+         * absent in base list
+         * @param adapterOffset - adapter position corresponding the first element of {@code adapterItems}
+         ***************************************************************************************************************
+         */
+        EditGraph(int[][] adapterItems, int adapterOffset) {
+            mAdapterItems = adapterItems;
+            mAdapterOffset = adapterOffset;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Follows diagonal of edit graph while base list item is equal to adapter item. Reversed graph is followed from
+         * the bottom right corner of the rectangle
+         * @return base list position where diagonal is interrupted (relative to the start of the rectangle or to its
+         * end if graph is reversed)
+         ***************************************************************************************************************
+         */
+        private int followSnake(int baseListStart,
+                int baseListItemsCount,
+                int adapterStart,
+                int adapterItemsCount,
+                boolean isReversed,
+                int x,
+                int y) {
+            int[][] adapterItems = mAdapterItems;
+            int adapterItemIndex = adapterStart - mAdapterOffset;
+            while (x < baseListItemsCount && y < adapterItemsCount) {
+                int[] baseListPositions;
+                int baseListPosition;
+                if (isReversed) {
+                    baseListPositions = adapterItems[adapterItemIndex + adapterItemsCount - 1 - y];
+                    baseListPosition = baseListStart + baseListItemsCount - 1 - x;
+                } else {
+                    baseListPositions = adapterItems[adapterItemIndex + y];
+                    baseListPosition = baseListStart + x;
+                }
+                if (  baseListPositions == null
+                   || Arrays.binarySearch(baseListPositions, baseListPosition) < 0)
+                    break;
+
+                x++;
+                y++;
+            }
+            return x;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * @return {@code true} if any adapter item of rectangle is equal to any base list item of the rectangle
+         ***************************************************************************************************************
+         */
+        boolean hasMatches(int baseListStart, int baseListEnd, int adapterStart, int adapterEnd) {
+            int[][] adapterItems = mAdapterItems;
+            for(int counterAdapter = adapterStart; counterAdapter < adapterEnd; counterAdapter++) {
+                int[] baseListPositions = adapterItems[counterAdapter - mAdapterOffset];
+                if (baseListPositions == null)
+                    continue;
+
+                int baseListPosition = findBaseListItemIndex(baseListStart, baseListPositions);
+                if (baseListPosition != -1 && baseListPosition < baseListEnd)
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * Looks for the shortest edit script within rectangle of edit graph
+         * @param isStartFree - if {@code true} the script can start from any adapter item of the rectangle otherwise it
+         * starts from the top left corner
+         * @param isEndFree - if {@code true} the script can end at any adapter item of the rectangle otherwise it ends
+         * at the bottom right corner
+         * @param pivotsOffset - index where found pivots are stored to {@code pivotBaseListPositions} and
+         * {@code pivotAdapterPositions}
+         * @return number of pivots found or {@link DiffAnalyser#COST_LIMIT_EXCEEDED} if the script contains more edits
+         * than {@code costLimit}
+         ***************************************************************************************************************
+         */
+        int findPivots(int baseListStart,
+                int baseListEnd,
+                int adapterStart,
+                int adapterEnd,
+                boolean isStartFree,
+                boolean isEndFree,
+                int costLimit,
+                int[] pivotBaseListPositions,
+                int[] pivotAdapterPositions,
+                int pivotsOffset) {
+            int baseListItemsCount = baseListEnd - baseListStart;
+            int adapterItemsCount = adapterEnd - adapterStart;
+
+            // Every free adapter item seeds its own diagonal, so script with free start and fixed end is searched
+            // from the end. Then only one diagonal is seeded
+            boolean isReversed = isStartFree && !isEndFree;
+            if (isReversed) {
+                isStartFree = false;
+                isEndFree = true;
+            }
+            int endDiagonalRequired = baseListItemsCount - adapterItemsCount;
+
+            // Every round keeps only diagonals k = x - y which can be reached with d edits. The lowest diagonal is
+            // stored at index 0 and the furthest base list position reached on diagonal k is stored at index
+            // k - lowest + 1 or -1 if the diagonal is not reached yet
+            ArrayList<int[]> trace = new ArrayList<int[]>();
+            int startRowsCount = isStartFree ? adapterItemsCount : 0;
+            int diagonalLow = -startRowsCount;
+            int diagonalHigh = 0;
+            int[] furthest = new int[diagonalHigh - diagonalLow + 2];
+            furthest[0] = diagonalLow;
+            int endDiagonal = Integer.MIN_VALUE;
+            for(int y = 0; y <= startRowsCount; y++) { // Any adapter item can start the subset for free
+                int diagonal = -y;
+                int x = followSnake(baseListStart,
+                        baseListItemsCount,
+                        adapterStart,
+                        adapterItemsCount,
+                        isReversed,
+                        0,
+                        y);
+                furthest[diagonal - diagonalLow + 1] = x;
+                if (  x == baseListItemsCount
+                   && endDiagonal == Integer.MIN_VALUE
+                   && (isEndFree || diagonal == endDiagonalRequired))
+                    endDiagonal = diagonal;
+            }
+            trace.add(furthest);
+
+            while (endDiagonal == Integer.MIN_VALUE) {
+                if (trace.size() > costLimit) // Next edit exceeds the limit
+                    return COST_LIMIT_EXCEEDED;
+
+                int[] previous = furthest;
+                diagonalLow = Math.max(-adapterItemsCount, diagonalLow - 1);
+                diagonalHigh = Math.min(baseListItemsCount, diagonalHigh + 1);
+                furthest = new int[diagonalHigh - diagonalLow + 2];
+                furthest[0] = diagonalLow;
+                for(int diagonal = diagonalHigh; diagonal >= diagonalLow; diagonal--) {
+                    int x = findEditResult(previous, diagonal, baseListItemsCount, adapterItemsCount);
+                    if (x != -1)
+                        x = followSnake(baseListStart,
+                                baseListItemsCount,
+                                adapterStart,
+                                adapterItemsCount,
+                                isReversed,
+                                x,
+                                x - diagonal);
+                    x = Math.max(x, getFurthest(previous, diagonal));
+                    furthest[diagonal - diagonalLow + 1] = x;
+
+                    if (  x == baseListItemsCount
+                       && endDiagonal == Integer.MIN_VALUE
+                       && (isEndFree || diagonal == endDiagonalRequired))
+                        endDiagonal = diagonal;
+                }
+                trace.add(furthest);
+            }
+
+            return collectPivots(trace,
+                    baseListStart,
+                    baseListItemsCount,
+                    adapterStart,
+                    adapterItemsCount,
+                    isReversed,
+                    endDiagonal,
+                    pivotBaseListPositions,
+                    pivotAdapterPositions,
+                    pivotsOffset);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return the furthest base list position reached on {@code diagonal} in the round or -1 if the diagonal is not
+     * reached
+     *******************************************************************************************************************
+     */
+    private static int getFurthest(int[] furthest, int diagonal) {
+        int diagonalIndex = diagonal - furthest[0] + 1;
+        if (diagonalIndex < 1 || diagonalIndex >= furthest.length)
+            return -1;
+        return furthest[diagonalIndex];
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Makes one edit to reach {@code diagonal}: deletion of base list item from the diagonal on the left or insertion
+     * of adapter item from the diagonal on the right
+     * @return base list position reached by the edit or -1 if the diagonal can not be reached
+     *******************************************************************************************************************
+     */
+    private static int findEditResult(int[] previous, int diagonal, int baseListItemsCount, int adapterItemsCount) {
+        int xDelete = -1;
+        if (diagonal - 1 >= -adapterItemsCount) {
+            int xPrevious = getFurthest(previous, diagonal - 1);
+            if (xPrevious != -1 && xPrevious < baseListItemsCount)
+                xDelete = xPrevious + 1;
+        }
+
+        int xInsert = -1;
+        if (diagonal + 1 <= baseListItemsCount) {
+            int xPrevious = getFurthest(previous, diagonal + 1);
+            if (xPrevious != -1 && xPrevious - diagonal <= adapterItemsCount)
+                xInsert = xPrevious;
+        }
+
+        return Math.max(xDelete, xInsert);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Walks edit graph back from the end point and collects diagonal moves as pivots. Pivots of reversed graph are
+     * collected in ascending order, otherwise they are reversed after collection
+     * @return number of pivots found
+     *******************************************************************************************************************
+     */
+    private static int collectPivots(ArrayList<int[]> trace,
+            int baseListStart,
+            int baseListItemsCount,
+            int adapterStart,
+            int adapterItemsCount,
+            boolean isReversed,
+            int endDiagonal,
+            int[] pivotBaseListPositions,
+            int[] pivotAdapterPositions,
+            int pivotsOffset) {
+        int pivotsCount = 0;
+        int diagonal = endDiagonal;
+        int x = baseListItemsCount;
+        for(int counterEdit = trace.size() - 1; counterEdit > 0; counterEdit--) {
+            int[] previous = trace.get(counterEdit - 1);
+            if (getFurthest(previous, diagonal) == x)
+                continue; // Point was reached with less edits
+
+            int xEdit = findEditResult(previous, diagonal, baseListItemsCount, adapterItemsCount);
+            pivotsCount = addSnakePivots(baseListStart,
+                    baseListItemsCount,
+                    adapterStart,
+                    adapterItemsCount,
+                    isReversed,
+                    diagonal,
+                    xEdit,
+                    x,
+                    pivotBaseListPositions,
+                    pivotAdapterPositions,
+                    pivotsOffset,
+                    pivotsCount);
+
+            int xDelete = -1;
+            if (diagonal - 1 >= -adapterItemsCount) {
+                int xPrevious = getFurthest(previous, diagonal - 1);
+                if (xPrevious != -1 && xPrevious < baseListItemsCount)
+                    xDelete = xPrevious + 1;
+            }
+            if (xEdit == xDelete)
+                diagonal--;
+            else
+                diagonal++;
+            x = getFurthest(previous, diagonal);
+        }
+        pivotsCount = addSnakePivots(baseListStart,
+                baseListItemsCount,
+                adapterStart,
+                adapterItemsCount,
+                isReversed,
+                diagonal,
+                0,
+                x,
+                pivotBaseListPositions,
+                pivotAdapterPositions,
+                pivotsOffset,
+                pivotsCount);
+        if (isReversed)
+            return pivotsCount;
+
+        for(int counterPivot = 0; counterPivot < pivotsCount / 2; counterPivot++) {
+            int pivotIndex = pivotsOffset + counterPivot;
+            int pivotIndexMirror = pivotsOffset + pivotsCount - 1 - counterPivot;
+
+            int baseListPosition = pivotBaseListPositions[pivotIndex];
+            pivotBaseListPositions[pivotIndex] = pivotBaseListPositions[pivotIndexMirror];
+            pivotBaseListPositions[pivotIndexMirror] = baseListPosition;
+
+            int adapterPosition = pivotAdapterPositions[pivotIndex];
+            pivotAdapterPositions[pivotIndex] = pivotAdapterPositions[pivotIndexMirror];
+            pivotAdapterPositions[pivotIndexMirror] = adapterPosition;
+        }
+        return pivotsCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Stores diagonal moves from {@code xEnd - 1} down to {@code xStart} as pivots
+     * @return number of pivots stored
+     *******************************************************************************************************************
+     */
+    private static int addSnakePivots(int baseListStart,
+            int baseListItemsCount,
+            int adapterStart,
+            int adapterItemsCount,
+            boolean isReversed,
+            int diagonal,
+            int xStart,
+            int xEnd,
+            int[] pivotBaseListPositions,
+            int[] pivotAdapterPositions,
+            int pivotsOffset,
+            int pivotsCount) {
+        for(int xSnake = xEnd - 1; xSnake >= xStart; xSnake--) {
+            int pivotIndex = pivotsOffset + pivotsCount;
+            if (isReversed) {
+                pivotBaseListPositions[pivotIndex] = baseListStart + baseListItemsCount - 1 - xSnake;
+                pivotAdapterPositions[pivotIndex] = adapterStart + adapterItemsCount - 1 - (xSnake - diagonal);
+            } else {
+                pivotBaseListPositions[pivotIndex] = baseListStart + xSnake;
+                pivotAdapterPositions[pivotIndex] = adapterStart + xSnake - diagonal;
+            }
+            pivotsCount++;
+        }
+        return pivotsCount;
+    }
+}
@@ -0,0 +1,323 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ ***********************************************************************************************************************
+ * This analyser is designed for very large lists. Items which are unique both in base list and in adapter items and
+ * keep their order (the longest increasing subsequence of such items) are taken as pivots first. They split base list
+ * and adapter items into independent segments which are analysed by Myers' algorithm on {@link ForkJoinPool}. Segments
+ * are merged in their order, so the result does not depend on number of threads.
+ * The result is an approximation of the shortest edit script. If all items are unique the anchors form the longest
+ * common subsequence and the result is as short as found by {@link MyersDiffAnalyser}. Otherwise anchors may lie off
+ * the shortest script (e.g. when unique items are swapped around duplicate ones), and the merged script may contain
+ * more changes. Every segment is searched with fixed corners at anchors, so its cost is bounded by its own edits.
+ * The class does not use Android API. On Android it requires API level 21 because of {@link ForkJoinPool}.
+ ***********************************************************************************************************************
+ */
+public class ParallelDiffAnalyser extends DiffAnalyser {
+    private static final int SEGMENTS_MIN_TASK_SIZE = 4096; // Segments with less items in total are not forked
+    private static final int SEGMENT_BOUNDS_SIZE = 4;
+
+    private final ForkJoinPool mPool;
+    private int[][] mAdapterItems = new int[0][]; // Reused by next searches
+
+    /**
+     *******************************************************************************************************************
+     * @param pool - pool where segments are analysed. If it is {@code null} segments are analysed in caller thread
+     *******************************************************************************************************************
+     */
+    public ParallelDiffAnalyser(ForkJoinPool pool, Object[] baseList) {
+        super(baseList);
+        mPool = pool;
+    }
+
+    public ParallelDiffAnalyser(ForkJoinPool pool, long[] baseListIDs) {
+        super(baseListIDs);
+        mPool = pool;
+    }
+
+    public ParallelDiffAnalyser(ForkJoinPool pool) {
+        super();
+        mPool = pool;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return pool shared by analysers created by {@link DiffStrategy#PARALLEL}. The pool is created on first use
+     *******************************************************************************************************************
+     */
+    static ForkJoinPool getDefaultPool() {
+        return DefaultPoolHolder.POOL;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Looks for matches where adapter item is equal to single base list item and the base list item is equal to that
+     * adapter item only
+     * @return number of unique matches found. Their indices are stored to {@code uniqueMatches}
+     *******************************************************************************************************************
+     */
+    private int findUniqueMatches(int[] uniqueMatches) {
+        int matchesCount = getMatchesCount();
+        int[] baseListMatchesCounts = new int[getBaseListItemsCount()];
+        for(int counterMatch = 0; counterMatch < matchesCount; counterMatch++)
+            for(int baseListPosition : getMatchBaseListPositions(counterMatch))
+                baseListMatchesCounts[baseListPosition]++;
+
+        int uniqueMatchesCount = 0;
+        for(int counterMatch = 0; counterMatch < matchesCount; counterMatch++) {
+            int[] baseListPositions = getMatchBaseListPositions(counterMatch);
+            if (baseListPositions.length == 1 && baseListMatchesCounts[baseListPositions[0]] == 1) {
+                uniqueMatches[uniqueMatchesCount] = counterMatch;
+                uniqueMatchesCount++;
+            }
+        }
+        return uniqueMatchesCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Looks for the longest subsequence of unique matches where base list positions grow with adapter positions
+     * @return number of anchors found. Base list and adapter positions of anchors are stored to
+     * {@code anchorBaseListPositions} and {@code anchorAdapterPositions}
+     *******************************************************************************************************************
+     */
+    private int findAnchors(int[] uniqueMatches,
+            int uniqueMatchesCount,
+            int[] anchorBaseListPositions,
+            int[] anchorAdapterPositions) {
+        int[] tailMatches = new int[uniqueMatchesCount]; // Index of the last match of increasing subsequence of length
+        int[] previousMatches = new int[uniqueMatchesCount];  // i + 1 having the smallest base list position
+        int subsequenceLength = 0;
+        for(int counterMatch = 0; counterMatch < uniqueMatchesCount; counterMatch++) {
+            int baseListPosition = getMatchBaseListPositions(uniqueMatches[counterMatch])[0];
+
+            int low = 0;
+            int high = subsequenceLength;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (getMatchBaseListPositions(uniqueMatches[tailMatches[middle]])[0] < baseListPosition)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            previousMatches[counterMatch] = low == 0 ? -1 : tailMatches[low - 1];
+            tailMatches[low] = counterMatch;
+            if (low == subsequenceLength)
+                subsequenceLength++;
+        }
+
+        int counterMatch = subsequenceLength == 0 ? -1 : tailMatches[subsequenceLength - 1];
+        for(int counterAnchor = subsequenceLength - 1; counterAnchor >= 0; counterAnchor--) {
+            int match = uniqueMatches[counterMatch];
+            anchorBaseListPositions[counterAnchor] = getMatchBaseListPositions(match)[0];
+            anchorAdapterPositions[counterAnchor] = getMatchAdapterPosition(match);
+            counterMatch = previousMatches[counterMatch];
+        }
+        return subsequenceLength;
+    }
+
+    @Override
+    protected int onFindPivots(int[] pivotBaseListPositions, int[] pivotAdapterPositions) {
+        int matchesCount = getMatchesCount();
+        if (matchesCount == 0)
+            return 0;
+
+        int[][] adapterItems = MyersDiffAnalyser.collectAdapterItems(this, mAdapterItems);
+        mAdapterItems = adapterItems;
+        int adapterOffset = getMatchAdapterPosition(0);
+        int baseListItemsCount = getBaseListItemsCount();
+
+        int[] uniqueMatches = new int[matchesCount];
+        int uniqueMatchesCount = findUniqueMatches(uniqueMatches);
+        int[] anchorBaseListPositions = new int[uniqueMatchesCount];
+        int[] anchorAdapterPositions = new int[uniqueMatchesCount];
+        int anchorsCount = findAnchors(uniqueMatches,
+                uniqueMatchesCount,
+                anchorBaseListPositions,
+                anchorAdapterPositions);
+
+        MyersDiffAnalyser.EditGraph graph = new MyersDiffAnalyser.EditGraph(adapterItems, adapterOffset);
+        Segments segments = new Segments(graph,
+                anchorsCount + 1,
+                getCostLimit());
+        int baseListStart = 0;
+        int adapterStart = adapterOffset;
+        for(int counterAnchor = 0; counterAnchor < anchorsCount; counterAnchor++) {
+            segments.setSegment(counterAnchor,
+                    baseListStart,
+                    anchorBaseListPositions[counterAnchor],
+                    adapterStart,
+                    anchorAdapterPositions[counterAnchor]);
+            baseListStart = anchorBaseListPositions[counterAnchor] + 1;
+            adapterStart = anchorAdapterPositions[counterAnchor] + 1;
+        }
+        segments.setSegment(anchorsCount,
+                baseListStart,
+                baseListItemsCount,
+                adapterStart,
+                adapterOffset + MyersDiffAnalyser.getAdapterItemsCount(this));
+
+        ForkJoinPool pool = mPool;
+        if (pool == null)
+            segments.findPivots(0, anchorsCount + 1);
+        else
+            pool.invoke(new SegmentsTask(segments, 0, anchorsCount + 1));
+
+        // Segment pivots are stored from segment start in base list, so pivots of segments and anchors are merged in
+        // ascending order
+        int pivotsCount = 0;
+        for(int counterSegment = 0; counterSegment <= anchorsCount; counterSegment++) {
+            int segmentPivotsCount = segments.getPivotsCount(counterSegment);
+            if (segmentPivotsCount == COST_LIMIT_EXCEEDED) {
+                pivotsCount = COST_LIMIT_EXCEEDED;
+                break;
+            }
+
+            int segmentStart = segments.getBaseListStart(counterSegment);
+            System.arraycopy(segments.getPivotBaseListPositions(), segmentStart,
+                    pivotBaseListPositions, pivotsCount, segmentPivotsCount);
+            System.arraycopy(segments.getPivotAdapterPositions(), segmentStart,
+                    pivotAdapterPositions, pivotsCount, segmentPivotsCount);
+            pivotsCount += segmentPivotsCount;
+
+            if (counterSegment < anchorsCount) {
+                pivotBaseListPositions[pivotsCount] = anchorBaseListPositions[counterSegment];
+                pivotAdapterPositions[pivotsCount] = anchorAdapterPositions[counterSegment];
+                pivotsCount++;
+            }
+        }
+
+        return pivotsCount;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Rectangles of edit graph between anchors. The first segment may start from any adapter item and the last one may
+     * end at any adapter item while other segments connect neighbour anchors
+     *******************************************************************************************************************
+     */
+    private class Segments {
+        private final MyersDiffAnalyser.EditGraph mGraph;
+        private final int mSegmentsCount;
+        private final int mCostLimit;
+        private final int[] mBounds; // Base list start, base list end, adapter start, adapter end for every segment
+        private final int[] mPivotsCounts;
+        private final int[] mPivotBaseListPositions;
+        private final int[] mPivotAdapterPositions;
+
+        private Segments(MyersDiffAnalyser.EditGraph graph, int segmentsCount, int costLimit) {
+            mGraph = graph;
+            mSegmentsCount = segmentsCount;
+            mCostLimit = costLimit;
+            mBounds = new int[segmentsCount * SEGMENT_BOUNDS_SIZE];
+            mPivotsCounts = new int[segmentsCount];
+            int baseListItemsCount = getBaseListItemsCount();
+            mPivotBaseListPositions = new int[baseListItemsCount];
+            mPivotAdapterPositions = new int[baseListItemsCount];
+        }
+
+        public void setSegment(int segment, int baseListStart, int baseListEnd, int adapterStart, int adapterEnd) {
+            int boundsOffset = segment * SEGMENT_BOUNDS_SIZE;
+            mBounds[boundsOffset] = baseListStart;
+            mBounds[boundsOffset + 1] = baseListEnd;
+            mBounds[boundsOffset + 2] = adapterStart;
+            mBounds[boundsOffset + 3] = adapterEnd;
+        }
+
+        public int getBaseListStart(int segment) {
+            return mBounds[segment * SEGMENT_BOUNDS_SIZE];
+        }
+
+        public int getPivotsCount(int segment) {
+            return mPivotsCounts[segment];
+        }
+
+        public int[] getPivotBaseListPositions() {
+            return mPivotBaseListPositions;
+        }
+
+        public int[] getPivotAdapterPositions() {
+            return mPivotAdapterPositions;
+        }
+
+        /**
+         ***************************************************************************************************************
+         * @return number of base list and adapter items in segments from {@code startSegment} to {@code endSegment}
+         ***************************************************************************************************************
+         */
+        public long getItemsCount(int startSegment, int endSegment) {
+            int[] bounds = mBounds;
+            long itemsCount = 0;
+            for(int counterSegment = startSegment; counterSegment < endSegment; counterSegment++) {
+                int boundsOffset = counterSegment * SEGMENT_BOUNDS_SIZE;
+                itemsCount += bounds[boundsOffset + 1] - bounds[boundsOffset]
+                        + bounds[boundsOffset + 3] - bounds[boundsOffset + 2];
+            }
+            return itemsCount;
+        }
+
+        public void findPivots(int startSegment, int endSegment) {
+            int[] bounds = mBounds;
+            int lastSegment = mSegmentsCount - 1;
+            for(int counterSegment = startSegment; counterSegment < endSegment; counterSegment++) {
+                int boundsOffset = counterSegment * SEGMENT_BOUNDS_SIZE;
+                int baseListStart = bounds[boundsOffset];
+                int baseListEnd = bounds[boundsOffset + 1];
+                int adapterStart = bounds[boundsOffset + 2];
+                int adapterEnd = bounds[boundsOffset + 3];
+                if (!mGraph.hasMatches(baseListStart, baseListEnd, adapterStart, adapterEnd)) {
+                    mPivotsCounts[counterSegment] = 0; // Long blocks of new items are not passed to Myers' algorithm
+                    continue;
+                }
+
+                mPivotsCounts[counterSegment] = mGraph.findPivots(baseListStart,
+                        baseListEnd,
+                        adapterStart,
+                        adapterEnd,
+                        counterSegment == 0,
+                        counterSegment == lastSegment,
+                        mCostLimit,
+                        mPivotBaseListPositions,
+                        mPivotAdapterPositions,
+                        baseListStart);
+            }
+        }
+    }
+
+    private class SegmentsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Segments mSegments;
+        private final int mStartSegment;
+        private final int mEndSegment;
+
+        private SegmentsTask(Segments segments, int startSegment, int endSegment) {
+            mSegments = segments;
+            mStartSegment = startSegment;
+            mEndSegment = endSegment;
+        }
+
+        @Override
+        protected void compute() {
+            int startSegment = mStartSegment;
+            int endSegment = mEndSegment;
+            if (  endSegment - startSegment == 1
+               || mSegments.getItemsCount(startSegment, endSegment) <= SEGMENTS_MIN_TASK_SIZE) {
+                mSegments.findPivots(startSegment, endSegment);
+                return;
+            }
+
+            int middleSegment = (startSegment + endSegment) >>> 1;
+            invokeAll(new SegmentsTask(mSegments, startSegment, middleSegment),
+                    new SegmentsTask(mSegments, middleSegment, endSegment));
+        }
+    }
+
+    private static class DefaultPoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+}
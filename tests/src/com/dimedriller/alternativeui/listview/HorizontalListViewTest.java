@@ -0,0 +1,124 @@
+package com.dimedriller.alternativeui.listview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+public class HorizontalListViewTest extends AndroidTestCase {
+    private static final int VIEW_WIDTH = 500;
+    private static final int VIEW_HEIGHT = 100;
+    private static final int ITEM_WIDTH = 100;
+    private static final int ITEMS_COUNT = 20;
+
+    private static class StringAdapter extends BaseAdapter {
+        private final List<String> mItems;
+        private final boolean mIsLayoutParamsSet;
+
+        public StringAdapter(List<String> items, boolean isLayoutParamsSet) {
+            mItems = items;
+            mIsLayoutParamsSet = isLayoutParamsSet;
+        }
+
+        public StringAdapter(List<String> items) {
+            this(items, true);
+        }
+
+        @Override
+        public int getCount() {
+            return mItems.size();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return mItems.get(position);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            TextView textView = (TextView) convertView;
+            if (textView == null) {
+                textView = new TextView(parent.getContext());
+                if (mIsLayoutParamsSet)
+                    textView.setLayoutParams(new ViewGroup.LayoutParams(ITEM_WIDTH,
+                            ViewGroup.LayoutParams.MATCH_PARENT));
+            }
+            textView.setText(mItems.get(position));
+            return textView;
+        }
+    }
+
+    private HorizontalListView<StringAdapter> createListView(StringAdapter adapter) {
+        HorizontalListView<StringAdapter> listView = new HorizontalListView<StringAdapter>(getContext());
+        listView.setAdapter(adapter);
+        listView.measure(View.MeasureSpec.makeMeasureSpec(VIEW_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(VIEW_HEIGHT, View.MeasureSpec.EXACTLY));
+        listView.layout(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+        return listView;
+    }
+
+    private static List<String> createItems() {
+        List<String> items = new ArrayList<String>();
+        for(int counterItem = 0; counterItem < ITEMS_COUNT; counterItem++)
+            items.add("Item " + counterItem);
+        return items;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return displayed items which are present in adapter, so items collapsed by running update are skipped
+     *******************************************************************************************************************
+     */
+    private static List<Object> getDisplayedItems(HorizontalListView<StringAdapter> listView, List<String> items) {
+        List<Object> displayedItems = new ArrayList<Object>();
+        HorizontalAbsListView.ItemInfoDeque itemInfos = listView.mItems;
+        for(int counterItem = 0; counterItem < itemInfos.size(); counterItem++) {
+            Object item = ((HorizontalListView.ListItemInfo) itemInfos.get(counterItem)).getItem();
+            if (items.contains(item))
+                displayedItems.add(item);
+        }
+        return displayedItems;
+    }
+
+    public void testItemRangeInsertedDuringUpdate() {
+        List<String> items = createItems();
+        HorizontalListView<StringAdapter> listView = createListView(new StringAdapter(items));
+
+        items.remove(1);
+        listView.notifyItemRangeRemoved(1, 1); // Collapsing of the item is started
+        items.add(2, "Inserted 0");
+        items.add(3, "Inserted 1");
+        listView.notifyItemRangeInserted(2, 2);
+
+        List<Object> displayedItems = getDisplayedItems(listView, items);
+        int firstItemIndex = listView.mFirstGlobalItemIndex;
+        assertEquals(0, firstItemIndex);
+        assertEquals(items.subList(firstItemIndex, firstItemIndex + displayedItems.size()), displayedItems);
+        assertTrue(displayedItems.contains("Inserted 0"));
+        assertTrue(displayedItems.contains("Inserted 1"));
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Prefetched item is bound and measured before its view is added to list view
+     *******************************************************************************************************************
+     */
+    public void testItemWithoutLayoutParamsMeasuredBeforeAdding() {
+        List<String> items = createItems();
+        HorizontalListView<StringAdapter> listView = createListView(new StringAdapter(items, false));
+
+        int itemIndex = listView.mFirstGlobalItemIndex + listView.mItems.size();
+        HorizontalAbsListView.ItemInfo item = listView.getItemsManager().bindItemInfo(listView, itemIndex);
+        item.measureViews(VIEW_WIDTH, VIEW_HEIGHT);
+        assertEquals(VIEW_HEIGHT, item.getHeight());
+    }
+}
@@ -0,0 +1,234 @@
+package com.dimedriller.alternativeui.listview;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import android.view.View;
+import android.widget.Adapter;
+import junit.framework.TestCase;
+
+public class ItemInfoDequeTest extends TestCase {
+    private static final int ITEM_WIDTH = 10;
+
+    private static class TestItemInfo extends HorizontalAbsListView.ItemInfo {
+        private final int mID;
+
+        public TestItemInfo(int id) {
+            mID = id;
+            layoutViews(getExpectedLeft(), 0, 0, ITEM_WIDTH);
+        }
+
+        public int getExpectedLeft() {
+            return mID * ITEM_WIDTH;
+        }
+
+        @Override
+        public void createItemViews(HorizontalAbsListView parent,
+                int index,
+                Adapter adapter,
+                HorizontalAbsListView.ViewCache viewCache) {
+            // No action
+        }
+
+        @Override
+        public void addItemViews(HorizontalAbsListView parent) {
+            // No action
+        }
+
+        @Override
+        public void removeItemViews(HorizontalAbsListView parent) {
+            // No action
+        }
+
+        @Override
+        public void recycleItemViews(HorizontalAbsListView.ViewCache viewCache) {
+            // No action
+        }
+
+        @Override
+        public void measureViewsBySpecs(int parentSpecWidth,
+                int paddingHorizontal,
+                int parentSpecHeight,
+                int paddingVertical) {
+            // No action
+        }
+
+        @Override
+        public void measureViews(int parentWidth, int parentHeight) {
+            // No action
+        }
+
+        @Override
+        protected void onLayoutViews(int left, int top, int width) {
+            // No action
+        }
+
+        @Override
+        protected void onOffsetViews(int dX) {
+            // No action
+        }
+
+        @Override
+        public void showPressed(int touchX, int touchY) {
+            // No action
+        }
+
+        @Override
+        public void hidePressed() {
+            // No action
+        }
+
+        @Override
+        public int findAdapterItemIndex(int index, int x, int y) {
+            return index;
+        }
+
+        @Override
+        public View findAdapterViewItem(int x, int y) {
+            return null;
+        }
+    }
+
+    private static void assertItemBounds(HorizontalAbsListView.ItemInfo item) {
+        int expectedLeft = ((TestItemInfo) item).getExpectedLeft();
+        assertEquals(expectedLeft, item.getLeft());
+        assertEquals(expectedLeft + ITEM_WIDTH, item.getRight());
+    }
+
+    private static void assertDequeItems(List<TestItemInfo> expectedItems, HorizontalAbsListView.ItemInfoDeque deque) {
+        int itemsCount = expectedItems.size();
+        assertEquals(itemsCount, deque.size());
+        assertEquals(itemsCount == 0, deque.isEmpty());
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            HorizontalAbsListView.ItemInfo item = deque.get(counterItem);
+            assertSame(expectedItems.get(counterItem), item);
+            assertItemBounds(item);
+        }
+    }
+
+    private static void checkRandomOperations(boolean isBoundsStored) {
+        Random random = new Random(1);
+        HorizontalAbsListView.ItemInfoDeque deque = new HorizontalAbsListView.ItemInfoDeque(isBoundsStored);
+        List<TestItemInfo> expectedItems = new ArrayList<TestItemInfo>();
+        int nextID = 0;
+        for(int counterOperation = 0; counterOperation < 5000; counterOperation++) {
+            int itemsCount = expectedItems.size();
+            int operation = random.nextInt(itemsCount < 100 ? 4 : 8); // Queue grows first and then keeps its size
+            if (itemsCount == 0)
+                operation %= 4;
+            switch (operation) {
+                case 0: {
+                    TestItemInfo item = new TestItemInfo(nextID++);
+                    deque.addFirst(item);
+                    expectedItems.add(0, item);
+                    break;
+                }
+                case 1: {
+                    TestItemInfo item = new TestItemInfo(nextID++);
+                    deque.add(item);
+                    expectedItems.add(item);
+                    break;
+                }
+                case 2: {
+                    int index = random.nextInt(itemsCount + 1);
+                    TestItemInfo item = new TestItemInfo(nextID++);
+                    deque.add(index, item);
+                    expectedItems.add(index, item);
+                    break;
+                }
+                case 3:
+                    if (itemsCount == 0)
+                        break;
+                    int setIndex = random.nextInt(itemsCount);
+                    TestItemInfo setItem = new TestItemInfo(nextID++);
+                    assertSame(expectedItems.set(setIndex, setItem), deque.set(setIndex, setItem));
+                    break;
+                case 4:
+                case 5: {
+                    int index = random.nextInt(itemsCount);
+                    assertSame(expectedItems.remove(index), deque.remove(index));
+                    break;
+                }
+                case 6:
+                    assertSame(expectedItems.remove(0), deque.removeFirst());
+                    break;
+                default:
+                    assertSame(expectedItems.remove(itemsCount - 1), deque.removeLast());
+                    break;
+            }
+            assertDequeItems(expectedItems, deque);
+        }
+    }
+
+    public void testRandomOperations() {
+        checkRandomOperations(false);
+    }
+
+    public void testRandomOperationsWithBounds() {
+        checkRandomOperations(true);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Items and their bounds are moved to new arrays in order when the queue grows while its head is wrapped around
+     *******************************************************************************************************************
+     */
+    public void testCapacityEnsuredWithWrappedHead() {
+        HorizontalAbsListView.ItemInfoDeque deque = new HorizontalAbsListView.ItemInfoDeque(true);
+        List<TestItemInfo> expectedItems = new ArrayList<TestItemInfo>();
+        for(int counterItem = 0; counterItem < 40; counterItem++) {
+            TestItemInfo item = new TestItemInfo(counterItem);
+            if (counterItem % 3 == 0) {
+                deque.addFirst(item);
+                expectedItems.add(0, item);
+            } else {
+                deque.add(item);
+                expectedItems.add(item);
+            }
+            assertDequeItems(expectedItems, deque);
+        }
+
+        deque.offsetBounds(0, deque.size(), ITEM_WIDTH);
+        for(int counterItem = 0; counterItem < deque.size(); counterItem++)
+            assertEquals(expectedItems.get(counterItem).getExpectedLeft() + ITEM_WIDTH,
+                    deque.get(counterItem).getLeft());
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Removed items get their bounds back from the queue storing them
+     *******************************************************************************************************************
+     */
+    public void testBoundsKeptByRemovedItems() {
+        HorizontalAbsListView.ItemInfoDeque deque = new HorizontalAbsListView.ItemInfoDeque(true);
+        for(int counterItem = 0; counterItem < 10; counterItem++)
+            deque.add(new TestItemInfo(counterItem));
+        deque.offsetBounds(2, 6, -ITEM_WIDTH);
+
+        HorizontalAbsListView.ItemInfo middleItem = deque.remove(4);
+        HorizontalAbsListView.ItemInfo firstItem = deque.removeFirst();
+        HorizontalAbsListView.ItemInfo lastItem = deque.removeLast();
+        assertEquals(3 * ITEM_WIDTH, middleItem.getLeft());
+        assertEquals(0, firstItem.getLeft());
+        assertEquals(9 * ITEM_WIDTH, lastItem.getLeft());
+
+        middleItem.offsetViews(ITEM_WIDTH);
+        assertEquals(4 * ITEM_WIDTH, middleItem.getLeft());
+        assertEquals(5 * ITEM_WIDTH, middleItem.getRight());
+    }
+
+    public void testLastIndexFoundByLeft() {
+        HorizontalAbsListView.ItemInfoDeque deque = new HorizontalAbsListView.ItemInfoDeque(true);
+        for(int counterItem = 5; counterItem < 25; counterItem++)
+            deque.add(new TestItemInfo(counterItem));
+        for(int counterItem = 4; counterItem >= 0; counterItem--)
+            deque.addFirst(new TestItemInfo(counterItem));
+
+        assertEquals(-1, deque.findLastIndexByLeft(-1));
+        assertEquals(0, deque.findLastIndexByLeft(0));
+        assertEquals(0, deque.findLastIndexByLeft(ITEM_WIDTH - 1));
+        assertEquals(12, deque.findLastIndexByLeft(12 * ITEM_WIDTH + 5));
+        assertEquals(24, deque.findLastIndexByLeft(1000 * ITEM_WIDTH));
+    }
+}
@@ -0,0 +1,180 @@
+package com.dimedriller.alternativeui.listview;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class ItemWidthIndexTest extends TestCase {
+    private static final int WIDTH_UNKNOWN = -1;
+    private static final int ESTIMATED_WIDTH = 50;
+
+    /**
+     *******************************************************************************************************************
+     * Widths kept in plain list. Offsets are summed item by item
+     *******************************************************************************************************************
+     */
+    private static class WidthList {
+        private final List<Integer> mWidths = new ArrayList<Integer>();
+        private int mEstimatedWidth = ESTIMATED_WIDTH;
+
+        private void updateEstimatedWidth() {
+            long knownWidthsSum = 0;
+            int knownWidthsCount = 0;
+            for(int width : mWidths)
+                if (width != WIDTH_UNKNOWN) {
+                    knownWidthsSum += width;
+                    knownWidthsCount++;
+                }
+            if (knownWidthsCount != 0)
+                mEstimatedWidth = (int) (knownWidthsSum / knownWidthsCount);
+        }
+
+        public int getItemsCount() {
+            return mWidths.size();
+        }
+
+        public int getEstimatedWidth() {
+            return mEstimatedWidth;
+        }
+
+        public void insertItems(int position, int count) {
+            for(int counterItem = 0; counterItem < count; counterItem++)
+                mWidths.add(position, WIDTH_UNKNOWN);
+        }
+
+        public void removeItems(int position, int count) {
+            for(int counterItem = 0; counterItem < count; counterItem++)
+                mWidths.remove(position);
+            updateEstimatedWidth();
+        }
+
+        public void setWidth(int position, int width) {
+            mWidths.set(position, width);
+            updateEstimatedWidth();
+        }
+
+        public long getOffset(int position) {
+            long offset = 0;
+            for(int counterItem = 0; counterItem < position; counterItem++) {
+                int width = mWidths.get(counterItem);
+                offset += width == WIDTH_UNKNOWN ? mEstimatedWidth : width;
+            }
+            return offset;
+        }
+
+        public int findPosition(long offset) {
+            int position = 0;
+            for(int counterItem = 1; counterItem < mWidths.size(); counterItem++)
+                if (getOffset(counterItem) <= offset)
+                    position = counterItem;
+            return position;
+        }
+    }
+
+    private static void assertIndex(WidthList expectedWidths, HorizontalAbsListView.ItemWidthIndex index) {
+        int itemsCount = expectedWidths.getItemsCount();
+        assertEquals(itemsCount, index.getItemsCount());
+        assertEquals(expectedWidths.getEstimatedWidth(), index.getEstimatedWidth());
+        for(int counterItem = 0; counterItem <= itemsCount; counterItem++)
+            assertEquals(expectedWidths.getOffset(counterItem), index.getOffset(counterItem));
+        assertEquals(expectedWidths.getOffset(itemsCount), index.getTotalWidth());
+        if (itemsCount == 0)
+            return;
+
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            long offset = expectedWidths.getOffset(counterItem);
+            assertEquals(counterItem, index.findPosition(offset));
+            long nextOffset = expectedWidths.getOffset(counterItem + 1);
+            if (nextOffset > offset + 1)
+                assertEquals(counterItem, index.findPosition(nextOffset - 1));
+        }
+        assertEquals(0, index.findPosition(-1));
+        assertEquals(itemsCount - 1, index.findPosition(expectedWidths.getOffset(itemsCount) + 1000));
+    }
+
+    public void testRandomOperations() {
+        Random random = new Random(1);
+        HorizontalAbsListView.ItemWidthIndex index = new HorizontalAbsListView.ItemWidthIndex();
+        index.setItemsCount(0);
+        index.setEstimatedWidth(ESTIMATED_WIDTH);
+        WidthList expectedWidths = new WidthList();
+        for(int counterOperation = 0; counterOperation < 2000; counterOperation++) {
+            int itemsCount = expectedWidths.getItemsCount();
+            int operation = random.nextInt(itemsCount < 50 ? 2 : 4); // Index grows first and then keeps its size
+            switch (operation) {
+                case 0: {
+                    int position = random.nextInt(itemsCount + 1);
+                    int count = 1 + random.nextInt(5);
+                    index.insertItems(position, count);
+                    expectedWidths.insertItems(position, count);
+                    break;
+                }
+                case 1:
+                case 2:
+                    if (itemsCount == 0)
+                        break;
+                    int position = random.nextInt(itemsCount);
+                    int width = 1 + random.nextInt(100);
+                    index.setWidth(position, width);
+                    expectedWidths.setWidth(position, width);
+                    break;
+                default: {
+                    int removedPosition = random.nextInt(itemsCount);
+                    int count = Math.min(1 + random.nextInt(5), itemsCount - removedPosition);
+                    index.removeItems(removedPosition, count);
+                    expectedWidths.removeItems(removedPosition, count);
+                    break;
+                }
+            }
+            assertIndex(expectedWidths, index);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Items which have not been measured are counted with estimated width until any item is measured
+     *******************************************************************************************************************
+     */
+    public void testEstimatedWidths() {
+        HorizontalAbsListView.ItemWidthIndex index = new HorizontalAbsListView.ItemWidthIndex();
+        index.setItemsCount(10);
+        index.setEstimatedWidth(ESTIMATED_WIDTH);
+        assertEquals(10L * ESTIMATED_WIDTH, index.getTotalWidth());
+        assertEquals(3, index.findPosition(3 * ESTIMATED_WIDTH));
+        assertEquals(2, index.findPosition(3 * ESTIMATED_WIDTH - 1));
+
+        index.setWidth(0, 20);
+        index.setWidth(1, 40);
+        assertEquals(30, index.getEstimatedWidth());
+        index.setEstimatedWidth(ESTIMATED_WIDTH); // Ignored because widths are known
+        assertEquals(30, index.getEstimatedWidth());
+        assertEquals(20 + 40 + 8 * 30, index.getTotalWidth());
+        assertEquals(1, index.findPosition(20));
+        assertEquals(2, index.findPosition(60));
+
+        index.insertItems(1, 2); // Inserted items are counted with estimated width
+        assertEquals(12, index.getItemsCount());
+        assertEquals(20 + 30 + 30, index.getOffset(3));
+        assertEquals(3, index.findPosition(80));
+
+        index.removeItems(0, 1); // Estimated width follows widths left
+        assertEquals(40, index.getEstimatedWidth());
+        assertEquals(11L * 40, index.getTotalWidth());
+    }
+
+    public void testItemsCountChangeForgetsWidths() {
+        HorizontalAbsListView.ItemWidthIndex index = new HorizontalAbsListView.ItemWidthIndex();
+        index.setItemsCount(5);
+        index.setWidth(2, 70);
+        index.setItemsCount(5);
+        assertEquals(2L * 70, index.getOffset(2));
+
+        index.setItemsCount(8);
+        assertEquals(8L * 70, index.getTotalWidth()); // Estimated width of the last known widths is kept
+        index.setWidth(8, 10); // Out of items is ignored
+        assertEquals(8L * 70, index.getTotalWidth());
+        assertEquals(-1, new HorizontalAbsListView.ItemWidthIndex().findPosition(0));
+    }
+}
@@ -0,0 +1,70 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class AnchorDiffAnalyserTest extends TestCase {
+    private static final int BASE_LIST_ITEMS_COUNT = 200;
+    private static final int COST_LIMIT = 10;
+
+    /**
+     *******************************************************************************************************************
+     * Counts how many times matched adapter items are visited while pivots are searched
+     *******************************************************************************************************************
+     */
+    private static class CountingAnchorDiffAnalyser extends AnchorDiffAnalyser {
+        private int mVisitsCount;
+
+        public CountingAnchorDiffAnalyser(Object[] baseList) {
+            super(baseList);
+        }
+
+        @Override
+        protected int[] getMatchBaseListPositions(int matchIndex) {
+            mVisitsCount++;
+            return super.getMatchBaseListPositions(matchIndex);
+        }
+
+        public int getVisitsCount() {
+            return mVisitsCount;
+        }
+    }
+
+    public void testWorkBoundedByCostLimit() {
+        Object[] baseList = new Object[BASE_LIST_ITEMS_COUNT];
+        List<Object> items = new ArrayList<Object>();
+        for(int counterItem = 0; counterItem < BASE_LIST_ITEMS_COUNT; counterItem++) {
+            baseList[counterItem] = counterItem;
+            items.add(0, counterItem);
+        }
+
+        CountingAnchorDiffAnalyser diffAnalyser = new CountingAnchorDiffAnalyser(baseList);
+        diffAnalyser.setCostLimit(COST_LIMIT);
+        diffAnalyser.findDiff(new ListItemSource(items));
+
+        assertTrue(diffAnalyser.isCostLimitExceeded());
+        assertEquals(0, diffAnalyser.getChangeRunsCount());
+        assertTrue(diffAnalyser.getVisitsCount() <= BASE_LIST_ITEMS_COUNT * (COST_LIMIT + 2));
+    }
+
+    public void testChangesWithinCostLimitFound() {
+        Object[] baseList = new Object[BASE_LIST_ITEMS_COUNT];
+        List<Object> items = new ArrayList<Object>();
+        for(int counterItem = 0; counterItem < BASE_LIST_ITEMS_COUNT; counterItem++) {
+            baseList[counterItem] = counterItem;
+            items.add(counterItem);
+        }
+        items.remove(BASE_LIST_ITEMS_COUNT / 2);
+        items.add(BASE_LIST_ITEMS_COUNT / 3, "Inserted");
+
+        DiffAnalyser diffAnalyser = new AnchorDiffAnalyser(baseList);
+        diffAnalyser.setCostLimit(COST_LIMIT);
+        diffAnalyser.findDiff(new ListItemSource(items));
+
+        assertFalse(diffAnalyser.isCostLimitExceeded());
+        assertEquals(0, diffAnalyser.getSubsetOffset());
+        assertEquals(2, diffAnalyser.getChangeRunsCount());
+    }
+}
@@ -0,0 +1,145 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class DiffAnalyserTest extends TestCase {
+    private static final Object GAP = new Object();
+
+    /**
+     *******************************************************************************************************************
+     * Applies change runs to base list the way list view does: deleted items and items moved away leave gaps which
+     * are removed after all runs are applied
+     *******************************************************************************************************************
+     */
+    static List<Object> applyChanges(DiffAnalyser diffAnalyser, Object[] baseList, List<?> items) {
+        List<Object> list = new ArrayList<Object>(Arrays.asList(baseList));
+        int[] changeRuns = diffAnalyser.getChangeRuns();
+        int changeRunsCount = diffAnalyser.getChangeRunsCount();
+        for(int counterRun = 0; counterRun < changeRunsCount; counterRun++) {
+            int runOffset = counterRun * DiffAnalyser.RUN_SIZE;
+            int listPosition = changeRuns[runOffset + DiffAnalyser.RUN_LIST_POSITION];
+            int adapterPosition = changeRuns[runOffset + DiffAnalyser.RUN_ADAPTER_POSITION];
+            int length = changeRuns[runOffset + DiffAnalyser.RUN_LENGTH];
+            for(int counterItem = 0; counterItem < length; counterItem++)
+                switch (changeRuns[runOffset + DiffAnalyser.RUN_OPERATION]) {
+                    case DiffAnalyser.OPERATION_DELETE:
+                        list.set(listPosition + counterItem, GAP);
+                        break;
+                    case DiffAnalyser.OPERATION_INSERT:
+                        list.add(listPosition + counterItem, items.get(adapterPosition + counterItem));
+                        break;
+                    case DiffAnalyser.OPERATION_MOVE:
+                        list.set(listPosition, GAP);
+                        list.add(changeRuns[runOffset + DiffAnalyser.RUN_NEW_LIST_POSITION],
+                                items.get(adapterPosition));
+                        break;
+                    case DiffAnalyser.OPERATION_CHANGE:
+                        list.set(listPosition + counterItem, items.get(adapterPosition + counterItem));
+                        break;
+                }
+        }
+
+        List<Object> result = new ArrayList<Object>();
+        for(Object item : list)
+            if (item != GAP)
+                result.add(item);
+        return result;
+    }
+
+    static int countOperations(DiffAnalyser diffAnalyser, int operation) {
+        int[] changeRuns = diffAnalyser.getChangeRuns();
+        int changeRunsCount = diffAnalyser.getChangeRunsCount();
+        int operationsCount = 0;
+        for(int counterRun = 0; counterRun < changeRunsCount; counterRun++) {
+            int runOffset = counterRun * DiffAnalyser.RUN_SIZE;
+            if (changeRuns[runOffset + DiffAnalyser.RUN_OPERATION] == operation)
+                operationsCount += changeRuns[runOffset + DiffAnalyser.RUN_LENGTH];
+        }
+        return operationsCount;
+    }
+
+    static void assertDiffApplied(DiffAnalyser diffAnalyser, Object[] baseList, List<?> items) {
+        List<Object> result = applyChanges(diffAnalyser, baseList, items);
+        int subsetOffset = diffAnalyser.getSubsetOffset();
+        assertEquals(items.subList(subsetOffset, subsetOffset + result.size()), result);
+    }
+
+    private static void checkMove(DiffStrategy diffStrategy, Object[] baseList, List<?> items) {
+        DiffAnalyser diffAnalyser = diffStrategy.createAnalyser(baseList);
+        diffAnalyser.findDiff(new ListItemSource(items));
+
+        assertEquals(baseList.length, applyChanges(diffAnalyser, baseList, items).size());
+        assertEquals(0, diffAnalyser.getSubsetOffset());
+        assertDiffApplied(diffAnalyser, baseList, items);
+        assertEquals(1, countOperations(diffAnalyser, DiffAnalyser.OPERATION_MOVE));
+        assertEquals(0, countOperations(diffAnalyser, DiffAnalyser.OPERATION_INSERT));
+        assertEquals(0, countOperations(diffAnalyser, DiffAnalyser.OPERATION_DELETE));
+    }
+
+    public void testMoveAfterLastPivot() {
+        for(DiffStrategy diffStrategy : DiffStrategy.values())
+            checkMove(diffStrategy, new Object[] {"A", "B", "C"}, Arrays.asList("A", "C", "B"));
+    }
+
+    public void testMoveBeforeFirstPivot() {
+        for(DiffStrategy diffStrategy : DiffStrategy.values())
+            checkMove(diffStrategy, new Object[] {"A", "B", "C"}, Arrays.asList("C", "A", "B"));
+    }
+
+    public void testRandomChangesApplied() {
+        Random random = new Random(1);
+        for(int counterCase = 0; counterCase < 500; counterCase++) {
+            Object[] baseList = new Object[random.nextInt(10)];
+            for(int counterItem = 0; counterItem < baseList.length; counterItem++)
+                baseList[counterItem] = "I" + random.nextInt(12);
+            List<Object> items = new ArrayList<Object>();
+            int itemsCount = random.nextInt(12);
+            for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+                items.add("I" + random.nextInt(12));
+
+            for(DiffStrategy diffStrategy : DiffStrategy.values()) {
+                DiffAnalyser diffAnalyser = diffStrategy.createAnalyser(baseList);
+                diffAnalyser.findDiff(new ListItemSource(items));
+                assertDiffApplied(diffAnalyser, baseList, items);
+            }
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Buffers of analyser are reused by next searches, so longer and shorter lists are alternated
+     *******************************************************************************************************************
+     */
+    public void testReusedAnalyserSameAsNew() {
+        Random random = new Random(2);
+        for(DiffStrategy diffStrategy : DiffStrategy.values()) {
+            DiffAnalyser reusedDiffAnalyser = diffStrategy.createAnalyser();
+            for(int counterCase = 0; counterCase < 300; counterCase++) {
+                Object[] baseList = new Object[random.nextInt(counterCase % 2 == 0 ? 30 : 5)];
+                for(int counterItem = 0; counterItem < baseList.length; counterItem++)
+                    baseList[counterItem] = "I" + random.nextInt(12);
+                List<Object> items = new ArrayList<Object>();
+                int itemsCount = random.nextInt(30);
+                for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+                    items.add("I" + random.nextInt(12));
+
+                DiffAnalyser diffAnalyser = diffStrategy.createAnalyser(baseList);
+                diffAnalyser.findDiff(new ListItemSource(items));
+                reusedDiffAnalyser.setBaseList(baseList);
+                reusedDiffAnalyser.findDiff(new ListItemSource(items));
+
+                int changeRunsCount = diffAnalyser.getChangeRunsCount();
+                assertEquals(diffAnalyser.getSubsetOffset(), reusedDiffAnalyser.getSubsetOffset());
+                assertEquals(changeRunsCount, reusedDiffAnalyser.getChangeRunsCount());
+                assertTrue(Arrays.equals(
+                        Arrays.copyOf(diffAnalyser.getChangeRuns(), changeRunsCount * DiffAnalyser.RUN_SIZE),
+                        Arrays.copyOf(reusedDiffAnalyser.getChangeRuns(), changeRunsCount * DiffAnalyser.RUN_SIZE)));
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class MyersDiffAnalyserTest extends TestCase {
+    private static final int VALUES_COUNT = 6;
+
+    private static int[] createItems(Random random, int itemsCount) {
+        int[] items = new int[itemsCount];
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+            items[counterItem] = random.nextInt(VALUES_COUNT);
+        return items;
+    }
+
+    private static MyersDiffAnalyser.EditGraph createGraph(int[] baseList, int[] adapterItems) {
+        int[][] adapterItemPositions = new int[adapterItems.length][];
+        for(int counterAdapter = 0; counterAdapter < adapterItems.length; counterAdapter++) {
+            int positionsCount = 0;
+            for(int baseListItem : baseList)
+                if (baseListItem == adapterItems[counterAdapter])
+                    positionsCount++;
+            if (positionsCount == 0)
+                continue;
+
+            int[] positions = new int[positionsCount];
+            int positionIndex = 0;
+            for(int counterBase = 0; counterBase < baseList.length; counterBase++)
+                if (baseList[counterBase] == adapterItems[counterAdapter])
+                    positions[positionIndex++] = counterBase;
+            adapterItemPositions[counterAdapter] = positions;
+        }
+        return new MyersDiffAnalyser.EditGraph(adapterItemPositions, 0);
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return number of deletions and insertions of the shortest script found by dynamic programming
+     *******************************************************************************************************************
+     */
+    private static int findCost(int[] baseList, int[] adapterItems, boolean isStartFree, boolean isEndFree) {
+        int baseListItemsCount = baseList.length;
+        int adapterItemsCount = adapterItems.length;
+        int[][] costs = new int[baseListItemsCount + 1][adapterItemsCount + 1];
+        for(int x = 0; x <= baseListItemsCount; x++)
+            for(int y = 0; y <= adapterItemsCount; y++) {
+                if (x == 0) {
+                    costs[x][y] = isStartFree ? 0 : y;
+                    continue;
+                }
+
+                int cost = costs[x - 1][y] + 1;
+                if (y > 0) {
+                    cost = Math.min(cost, costs[x][y - 1] + 1);
+                    if (baseList[x - 1] == adapterItems[y - 1])
+                        cost = Math.min(cost, costs[x - 1][y - 1]);
+                }
+                costs[x][y] = cost;
+            }
+
+        int cost = costs[baseListItemsCount][adapterItemsCount];
+        if (isEndFree)
+            for(int y = 0; y < adapterItemsCount; y++)
+                cost = Math.min(cost, costs[baseListItemsCount][y]);
+        return cost;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Checks that pivots are ascending matches and returns cost of the script passing through them
+     *******************************************************************************************************************
+     */
+    private static int checkPivots(int[] baseList,
+            int[] adapterItems,
+            boolean isStartFree,
+            boolean isEndFree,
+            int[] pivotBaseListPositions,
+            int[] pivotAdapterPositions,
+            int pivotsCount) {
+        for(int counterPivot = 0; counterPivot < pivotsCount; counterPivot++) {
+            int baseListPosition = pivotBaseListPositions[counterPivot];
+            int adapterPosition = pivotAdapterPositions[counterPivot];
+            assertEquals(baseList[baseListPosition], adapterItems[adapterPosition]);
+            if (counterPivot > 0) {
+                assertTrue(baseListPosition > pivotBaseListPositions[counterPivot - 1]);
+                assertTrue(adapterPosition > pivotAdapterPositions[counterPivot - 1]);
+            }
+        }
+
+        int adapterStart = 0;
+        int adapterEnd = adapterItems.length;
+        if (pivotsCount == 0) {
+            if (isStartFree || isEndFree)
+                adapterStart = adapterEnd;
+        } else {
+            if (isStartFree)
+                adapterStart = pivotAdapterPositions[0];
+            if (isEndFree)
+                adapterEnd = pivotAdapterPositions[pivotsCount - 1] + 1;
+        }
+        return baseList.length - pivotsCount + adapterEnd - adapterStart - pivotsCount;
+    }
+
+    private static void checkGraph(int[] baseList, int[] adapterItems, boolean isStartFree, boolean isEndFree) {
+        int expectedCost = findCost(baseList, adapterItems, isStartFree, isEndFree);
+        MyersDiffAnalyser.EditGraph graph = createGraph(baseList, adapterItems);
+        int[] pivotBaseListPositions = new int[baseList.length];
+        int[] pivotAdapterPositions = new int[baseList.length];
+        int pivotsCount = graph.findPivots(0,
+                baseList.length,
+                0,
+                adapterItems.length,
+                isStartFree,
+                isEndFree,
+                DiffAnalyser.NO_COST_LIMIT,
+                pivotBaseListPositions,
+                pivotAdapterPositions,
+                0);
+        assertEquals(expectedCost, checkPivots(baseList,
+                adapterItems,
+                isStartFree,
+                isEndFree,
+                pivotBaseListPositions,
+                pivotAdapterPositions,
+                pivotsCount));
+
+        int costLimit = Math.max(0, expectedCost - 1);
+        int limitedPivotsCount = graph.findPivots(0,
+                baseList.length,
+                0,
+                adapterItems.length,
+                isStartFree,
+                isEndFree,
+                costLimit,
+                pivotBaseListPositions,
+                pivotAdapterPositions,
+                0);
+        assertEquals(expectedCost > costLimit, limitedPivotsCount == DiffAnalyser.COST_LIMIT_EXCEEDED);
+    }
+
+    public void testShortestScriptFound() {
+        Random random = new Random(1);
+        for(int counterCase = 0; counterCase < 1000; counterCase++) {
+            int[] baseList = createItems(random, random.nextInt(12));
+            int[] adapterItems = createItems(random, random.nextInt(12));
+            checkGraph(baseList, adapterItems, false, false);
+            checkGraph(baseList, adapterItems, true, false);
+            checkGraph(baseList, adapterItems, false, true);
+            checkGraph(baseList, adapterItems, true, true);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Only diagonals reached by edits are kept, so few edits in long lists are found without quadratic memory
+     *******************************************************************************************************************
+     */
+    public void testFewEditsInLongList() {
+        int itemsCount = 200000;
+        int editsCount = 100;
+        int[] baseList = new int[itemsCount];
+        int[] adapterItems = new int[itemsCount];
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++) {
+            baseList[counterItem] = counterItem;
+            adapterItems[counterItem] = counterItem;
+        }
+        for(int counterEdit = 0; counterEdit < editsCount; counterEdit++)
+            adapterItems[counterEdit * (itemsCount / editsCount)] = -1;
+
+        int[][] adapterItemPositions = new int[itemsCount][];
+        for(int counterAdapter = 0; counterAdapter < itemsCount; counterAdapter++)
+            if (adapterItems[counterAdapter] != -1)
+                adapterItemPositions[counterAdapter] = new int[] {adapterItems[counterAdapter]};
+        MyersDiffAnalyser.EditGraph graph = new MyersDiffAnalyser.EditGraph(adapterItemPositions, 0);
+        int[] pivotBaseListPositions = new int[itemsCount];
+        int[] pivotAdapterPositions = new int[itemsCount];
+        int pivotsCount = graph.findPivots(0,
+                itemsCount,
+                0,
+                itemsCount,
+                false,
+                true,
+                DiffAnalyser.NO_COST_LIMIT,
+                pivotBaseListPositions,
+                pivotAdapterPositions,
+                0);
+        assertEquals(itemsCount - editsCount, pivotsCount);
+    }
+}
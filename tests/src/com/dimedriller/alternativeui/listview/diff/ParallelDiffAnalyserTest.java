@@ -0,0 +1,163 @@
+package com.dimedriller.alternativeui.listview.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+
+public class ParallelDiffAnalyserTest extends TestCase {
+    private ForkJoinPool mPool;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mPool = new ForkJoinPool(2);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mPool.shutdown();
+        super.tearDown();
+    }
+
+    /**
+     *******************************************************************************************************************
+     * @return number of base list items which stay in place. Moved item leaves its place
+     *******************************************************************************************************************
+     */
+    private static int countKeptItems(DiffAnalyser diffAnalyser, Object[] baseList) {
+        return baseList.length
+                - DiffAnalyserTest.countOperations(diffAnalyser, DiffAnalyser.OPERATION_DELETE)
+                - DiffAnalyserTest.countOperations(diffAnalyser, DiffAnalyser.OPERATION_MOVE);
+    }
+
+    private static int findLongestSubsequenceLength(Object[] baseList, List<?> items) {
+        int[][] lengths = new int[baseList.length + 1][items.size() + 1];
+        for(int counterBase = 1; counterBase <= baseList.length; counterBase++)
+            for(int counterItem = 1; counterItem <= items.size(); counterItem++)
+                if (baseList[counterBase - 1].equals(items.get(counterItem - 1)))
+                    lengths[counterBase][counterItem] = lengths[counterBase - 1][counterItem - 1] + 1;
+                else
+                    lengths[counterBase][counterItem] = Math.max(lengths[counterBase - 1][counterItem],
+                            lengths[counterBase][counterItem - 1]);
+        return lengths[baseList.length][items.size()];
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Checks that changes found with and without pool are the same and produce adapter items. Anchors may lie off the
+     * shortest script, so the cost limit may be exceeded where Myers' script fits it but not vice versa
+     *******************************************************************************************************************
+     */
+    private DiffAnalyser checkParallelDiff(Object[] baseList, List<?> items, int costLimit) {
+        DiffAnalyser myersDiffAnalyser = new MyersDiffAnalyser(baseList);
+        myersDiffAnalyser.setCostLimit(costLimit);
+        myersDiffAnalyser.findDiff(new ListItemSource(items));
+
+        DiffAnalyser sequentialDiffAnalyser = new ParallelDiffAnalyser(null, baseList);
+        DiffAnalyser parallelDiffAnalyser = new ParallelDiffAnalyser(mPool, baseList);
+        sequentialDiffAnalyser.setCostLimit(costLimit);
+        sequentialDiffAnalyser.findDiff(new ListItemSource(items));
+        parallelDiffAnalyser.setCostLimit(costLimit);
+        parallelDiffAnalyser.findDiff(new ListItemSource(items));
+
+        assertEquals(sequentialDiffAnalyser.isCostLimitExceeded(), parallelDiffAnalyser.isCostLimitExceeded());
+        int changeRunsCount = parallelDiffAnalyser.getChangeRunsCount();
+        assertEquals(sequentialDiffAnalyser.getChangeRunsCount(), changeRunsCount);
+        assertTrue(Arrays.equals(
+                Arrays.copyOf(sequentialDiffAnalyser.getChangeRuns(), changeRunsCount * DiffAnalyser.RUN_SIZE),
+                Arrays.copyOf(parallelDiffAnalyser.getChangeRuns(), changeRunsCount * DiffAnalyser.RUN_SIZE)));
+
+        if (myersDiffAnalyser.isCostLimitExceeded())
+            assertTrue(parallelDiffAnalyser.isCostLimitExceeded());
+        if (!parallelDiffAnalyser.isCostLimitExceeded())
+            DiffAnalyserTest.assertDiffApplied(parallelDiffAnalyser, baseList, items);
+        return parallelDiffAnalyser;
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Unique items which keep their order form the longest common subsequence, and all of them stay in place
+     *******************************************************************************************************************
+     */
+    private void checkLongestSubsequenceKept(Object[] baseList, List<?> items) {
+        DiffAnalyser parallelDiffAnalyser = checkParallelDiff(baseList, items, DiffAnalyser.NO_COST_LIMIT);
+        assertEquals(findLongestSubsequenceLength(baseList, items), countKeptItems(parallelDiffAnalyser, baseList));
+    }
+
+    public void testInsertionsBetweenAnchors() {
+        checkLongestSubsequenceKept(new Object[] {"A", "B", "C"}, Arrays.asList("A", "X1", "X2", "X3", "X4", "B", "C"));
+    }
+
+    public void testSwappedAnchors() {
+        checkParallelDiff(new Object[] {"A", "x", "x", "x", "B"},
+                Arrays.asList("B", "x", "x", "x", "A"),
+                DiffAnalyser.NO_COST_LIMIT);
+    }
+
+    public void testSwappedAnchorsWithinCostLimit() {
+        checkParallelDiff(new Object[] {"A", "x", "x", "x", "B"}, Arrays.asList("B", "x", "x", "x", "A"), 4);
+    }
+
+    public void testUniqueItemsKept() {
+        Random random = new Random(1);
+        for(int counterCase = 0; counterCase < 1000; counterCase++) {
+            List<Object> baseItems = new ArrayList<Object>();
+            int baseListItemsCount = random.nextInt(16);
+            for(int counterItem = 0; counterItem < baseListItemsCount; counterItem++)
+                baseItems.add("I" + counterItem);
+
+            List<Object> items = new ArrayList<Object>(baseItems);
+            int editsCount = random.nextInt(6);
+            for(int counterEdit = 0; counterEdit < editsCount; counterEdit++) {
+                if (!items.isEmpty() && random.nextBoolean())
+                    items.remove(random.nextInt(items.size()));
+                else
+                    items.add(random.nextInt(items.size() + 1), "N" + counterEdit);
+            }
+            checkLongestSubsequenceKept(baseItems.toArray(), items);
+        }
+    }
+
+    public void testRandomItems() {
+        Random random = new Random(1);
+        for(int counterCase = 0; counterCase < 1000; counterCase++) {
+            Object[] baseList = new Object[random.nextInt(16)];
+            for(int counterItem = 0; counterItem < baseList.length; counterItem++)
+                baseList[counterItem] = "I" + random.nextInt(20);
+            List<Object> items = new ArrayList<Object>();
+            int itemsCount = random.nextInt(16);
+            for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+                items.add("I" + random.nextInt(20));
+
+            int costLimit = random.nextBoolean() ? DiffAnalyser.NO_COST_LIMIT : random.nextInt(10);
+            checkParallelDiff(baseList, items, costLimit);
+        }
+    }
+
+    /**
+     *******************************************************************************************************************
+     * Segments are searched between anchors only, so few edits in a long list do not need global search
+     *******************************************************************************************************************
+     */
+    public void testFewEditsInLongList() {
+        int itemsCount = 200000;
+        int editsCount = 200;
+        Object[] baseList = new Object[itemsCount];
+        for(int counterItem = 0; counterItem < itemsCount; counterItem++)
+            baseList[counterItem] = counterItem;
+        List<Object> items = new ArrayList<Object>(Arrays.asList(baseList));
+        Random random = new Random(1);
+        for(int counterEdit = 0; counterEdit < editsCount; counterEdit++)
+            items.add(1 + random.nextInt(items.size() - 1), "N" + counterEdit);
+
+        DiffAnalyser parallelDiffAnalyser = new ParallelDiffAnalyser(mPool, baseList);
+        parallelDiffAnalyser.findDiff(new ListItemSource(items));
+        assertFalse(parallelDiffAnalyser.isCostLimitExceeded());
+        assertEquals(itemsCount, countKeptItems(parallelDiffAnalyser, baseList));
+        assertEquals(editsCount, DiffAnalyserTest.countOperations(parallelDiffAnalyser, DiffAnalyser.OPERATION_INSERT));
+    }
+}